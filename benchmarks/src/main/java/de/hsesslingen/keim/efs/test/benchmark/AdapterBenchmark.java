@@ -0,0 +1,148 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2020 Hochschule Esslingen
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE. 
+ */
+package de.hsesslingen.keim.efs.test.benchmark;
+
+import de.hsesslingen.keim.efs.middleware.model.Booking;
+import de.hsesslingen.keim.efs.middleware.model.BookingState;
+import de.hsesslingen.keim.efs.middleware.model.Option;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Benchmarks the endpoints of an adapter through the request path of
+ * {@link de.hsesslingen.keim.efs.test.adapter.AdapterTestBase}. Subclass this
+ * in the adapter project, implement the abstract getters and run it with JMH.
+ * <p>
+ * Results are sampled, so JMH reports percentiles along with the mean.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public abstract class AdapterBenchmark extends AdapterBenchmarkBase {
+
+    private Booking existingBooking;
+    private Booking pendingBooking;
+    private Booking createdBooking;
+
+    @Setup(Level.Trial)
+    public void setupTrial() throws Exception {
+        startContext();
+        getCacheOptions();
+        existingBooking = bookRandomOption();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDownTrial() throws Exception {
+        try {
+            tryCloseBooking(existingBooking);
+        } finally {
+            stopContext();
+        }
+    }
+
+    /**
+     * Creates a fresh booking before each invocation of
+     * {@link #modifyBooking()}, which would otherwise run out of valid state
+     * transitions after the first call.
+     *
+     * @param params
+     * @throws Exception
+     */
+    @Setup(Level.Invocation)
+    public void setupInvocation(BenchmarkParams params) throws Exception {
+        if (params.getBenchmark().endsWith(".modifyBooking")) {
+            pendingBooking = bookRandomOption();
+
+            if (pendingBooking.getState() == BookingState.STARTED) {
+                pendingBooking.setState(BookingState.ABORTED);
+                // Set something for the "to" value. It can't be null if aborting.
+                pendingBooking.getLeg().setTo(pendingBooking.getLeg().getFrom());
+            } else {
+                pendingBooking.setState(BookingState.CANCELLED);
+            }
+        }
+    }
+
+    /**
+     * Closes the booking made by the last invocation of
+     * {@link #createBooking()}, so the benchmark doesn't leave one open
+     * booking per invocation behind.
+     *
+     * @throws Exception
+     */
+    @TearDown(Level.Invocation)
+    public void tearDownInvocation() throws Exception {
+        if (createdBooking != null) {
+            try {
+                tryCloseBooking(createdBooking);
+            } finally {
+                createdBooking = null;
+            }
+        }
+    }
+
+    @Benchmark
+    public List<Option> getOptions() throws Exception {
+        return super.getOptions();
+    }
+
+    @Benchmark
+    public Booking createBooking() throws Exception {
+        createdBooking = createBooking(getRandomCachedOption(), status().is2xxSuccessful());
+        return createdBooking;
+    }
+
+    @Benchmark
+    public Booking modifyBooking() throws Exception {
+        return modifyBooking(pendingBooking, status().is2xxSuccessful());
+    }
+
+    @Benchmark
+    public List<Booking> getBookings() throws Exception {
+        return getBookings(null, status().is2xxSuccessful());
+    }
+
+    @Benchmark
+    public Booking getBookingById() throws Exception {
+        return getBookingById(existingBooking.getId(), status().is2xxSuccessful());
+    }
+
+}
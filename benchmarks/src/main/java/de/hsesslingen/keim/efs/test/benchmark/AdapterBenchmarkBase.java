@@ -0,0 +1,153 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2020 Hochschule Esslingen
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE. 
+ */
+package de.hsesslingen.keim.efs.test.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.hsesslingen.keim.efs.test.adapter.AdapterIntegrationTest;
+import de.hsesslingen.keim.efs.test.adapter.BookingRegistry;
+import de.hsesslingen.keim.efs.test.adapter.perf.AllocationMeter;
+import de.hsesslingen.keim.efs.test.adapter.perf.HarnessMetrics;
+import de.hsesslingen.keim.efs.test.adapter.perf.LatencySlo;
+import org.slf4j.Logger;
+import static org.slf4j.LoggerFactory.getLogger;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import static org.springframework.test.web.servlet.setup.MockMvcBuilders.webAppContextSetup;
+import org.springframework.web.context.WebApplicationContext;
+
+/**
+ * Common base of the JMH benchmarks. Takes care of starting the application
+ * context of the adapter once per JVM and wiring {@link #mockMvc} and
+ * {@link #mapper}, which are autowired by Spring in regular tests.
+ * <p>
+ * Subclasses provide the same values as for {@link AdapterIntegrationTest}
+ * and additionally the application class of the adapter. The instrumentation
+ * of the harness is turned off, so it doesn't add to the measured time.
+ */
+public abstract class AdapterBenchmarkBase extends AdapterIntegrationTest {
+
+    private static final Logger logger = getLogger(AdapterBenchmarkBase.class);
+
+    private static final Object contextLock = new Object();
+    private static ConfigurableApplicationContext context;
+    private static int contextUsers;
+
+    /**
+     * The Spring Boot application class of the adapter under test.
+     *
+     * @return
+     */
+    protected abstract Class<?> getApplicationClass();
+
+    /**
+     * Starts the application context of the adapter. The default
+     * implementation runs {@link #getApplicationClass()} as servlet
+     * application on a random port. Override if the adapter needs special
+     * properties or profiles for benchmarking.
+     *
+     * @return
+     */
+    protected ConfigurableApplicationContext createApplicationContext() {
+        return new SpringApplicationBuilder(getApplicationClass())
+                .web(WebApplicationType.SERVLET)
+                .properties("server.port=0")
+                .run();
+    }
+
+    /**
+     * Returns null, JMH measures the time itself.
+     *
+     * @return
+     */
+    @Override
+    protected HarnessMetrics getHarnessMetrics() {
+        return null;
+    }
+
+    /**
+     * Returns null, use the GC profiler of JMH to measure allocations.
+     *
+     * @return
+     */
+    @Override
+    protected AllocationMeter getAllocationMeter() {
+        return null;
+    }
+
+    /**
+     * Returns null, budgets are checked by the integration tests.
+     *
+     * @return
+     */
+    @Override
+    protected LatencySlo getLatencySlo() {
+        return null;
+    }
+
+    /**
+     * Returns null, so bookings are not tracked. JMH never runs the
+     * {@code @AfterEach} methods which close them, so the registry would only
+     * grow and cost time in the measured path. Benchmarks close the bookings
+     * they create themselves.
+     *
+     * @return
+     */
+    @Override
+    protected BookingRegistry getBookingRegistry() {
+        return null;
+    }
+
+    /**
+     * Must be called from the trial setup of subclasses. The context is
+     * shared between all benchmark instances in this JVM.
+     */
+    protected void startContext() {
+        synchronized (contextLock) {
+            if (context == null) {
+                long start = System.nanoTime();
+                context = createApplicationContext();
+                logger.info("Started application context for benchmarks in {}ms.", (System.nanoTime() - start) / 1_000_000);
+            }
+
+            ++contextUsers;
+            mapper = context.getBean(ObjectMapper.class);
+            mockMvc = webAppContextSetup((WebApplicationContext) context).build();
+        }
+    }
+
+    /**
+     * Must be called from the trial tear down of subclasses. Closes the
+     * context as soon as no benchmark instance uses it anymore.
+     */
+    protected void stopContext() {
+        synchronized (contextLock) {
+            if (--contextUsers == 0 && context != null) {
+                context.close();
+                context = null;
+            }
+        }
+    }
+
+}
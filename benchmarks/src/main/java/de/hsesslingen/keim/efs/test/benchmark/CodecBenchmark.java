@@ -0,0 +1,142 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2020 Hochschule Esslingen
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE. 
+ */
+package de.hsesslingen.keim.efs.test.benchmark;
+
+import com.fasterxml.jackson.databind.JavaType;
+import de.hsesslingen.keim.efs.middleware.model.Booking;
+import de.hsesslingen.keim.efs.middleware.model.NewBooking;
+import de.hsesslingen.keim.efs.middleware.model.Option;
+import de.hsesslingen.keim.efs.test.adapter.codec.Codec;
+import de.hsesslingen.keim.efs.test.adapter.codec.JacksonCodec;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.Logger;
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Encode and decode throughput of JSON, Smile and CBOR for the payloads of
+ * the adapter. The encoded size of each payload is logged when the trial is
+ * set up, so bytes on the wire can be put next to the throughput.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public abstract class CodecBenchmark extends AdapterBenchmarkBase {
+
+    private static final Logger logger = getLogger(CodecBenchmark.class);
+
+    @Param({JacksonCodec.JSON, JacksonCodec.SMILE, JacksonCodec.CBOR})
+    public String codecName;
+
+    private Codec codec;
+
+    private List<Option> options;
+    private Booking booking;
+    private NewBooking newBooking;
+
+    private JavaType optionsType;
+    private JavaType bookingType;
+    private JavaType newBookingType;
+
+    private byte[] optionsBytes;
+    private byte[] bookingBytes;
+    private byte[] newBookingBytes;
+
+    @Setup(Level.Trial)
+    public void setupTrial() throws Exception {
+        startContext();
+
+        codec = JacksonCodec.forName(codecName, mapper);
+
+        options = getOptions();
+        newBooking = optionsToNewBooking(getRandomCachedOption(), getCustomer());
+        booking = bookRandomOption();
+        tryCloseBooking(booking);
+
+        var types = mapper.getTypeFactory();
+        optionsType = types.constructCollectionType(List.class, Option.class);
+        bookingType = types.constructType(Booking.class);
+        newBookingType = types.constructType(NewBooking.class);
+
+        optionsBytes = codec.encode(options);
+        bookingBytes = codec.encode(booking);
+        newBookingBytes = codec.encode(newBooking);
+
+        logger.info("Encoded sizes with {}: options[{}] {} bytes, booking {} bytes, newBooking {} bytes.",
+                codec.getName(), options.size(), optionsBytes.length, bookingBytes.length, newBookingBytes.length);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDownTrial() {
+        stopContext();
+    }
+
+    @Benchmark
+    public byte[] encodeOptions() throws IOException {
+        return codec.encode(options);
+    }
+
+    @Benchmark
+    public byte[] encodeBooking() throws IOException {
+        return codec.encode(booking);
+    }
+
+    @Benchmark
+    public byte[] encodeNewBooking() throws IOException {
+        return codec.encode(newBooking);
+    }
+
+    @Benchmark
+    public List<Option> decodeOptions() throws IOException {
+        return codec.decode(optionsBytes, optionsType);
+    }
+
+    @Benchmark
+    public Booking decodeBooking() throws IOException {
+        return codec.decode(bookingBytes, bookingType);
+    }
+
+    @Benchmark
+    public NewBooking decodeNewBooking() throws IOException {
+        return codec.decode(newBookingBytes, newBookingType);
+    }
+
+}
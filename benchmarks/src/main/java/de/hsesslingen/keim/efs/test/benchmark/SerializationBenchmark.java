@@ -0,0 +1,126 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2020 Hochschule Esslingen
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE. 
+ */
+package de.hsesslingen.keim.efs.test.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectReader;
+import java.io.IOException;
+import de.hsesslingen.keim.efs.middleware.model.Booking;
+import de.hsesslingen.keim.efs.middleware.model.NewBooking;
+import de.hsesslingen.keim.efs.middleware.model.Option;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Microbenchmarks of the JSON layer used by
+ * {@link de.hsesslingen.keim.efs.test.adapter.AdapterTestBase}, run with the
+ * {@code ObjectMapper} of the adapter. The sample objects are taken from the
+ * adapter itself, so the numbers reflect the payloads it actually produces.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public abstract class SerializationBenchmark extends AdapterBenchmarkBase {
+
+    private Option option;
+    private Booking booking;
+    private NewBooking newBooking;
+
+    private byte[] optionJson;
+    private byte[] bookingJson;
+    private byte[] newBookingJson;
+
+    private ObjectReader optionReader;
+    private ObjectReader bookingReader;
+    private ObjectReader newBookingReader;
+
+    @Setup(Level.Trial)
+    public void setupTrial() throws Exception {
+        startContext();
+
+        option = getRandomCachedOption();
+        newBooking = optionsToNewBooking(option, getCustomer());
+        booking = bookRandomOption();
+        tryCloseBooking(booking);
+
+        // Parsing reads from the bytes of the response, so the benchmarks do the same.
+        optionJson = mapper.writeValueAsBytes(option);
+        bookingJson = mapper.writeValueAsBytes(booking);
+        newBookingJson = mapper.writeValueAsBytes(newBooking);
+
+        optionReader = readerFor(Option.class);
+        bookingReader = readerFor(Booking.class);
+        newBookingReader = readerFor(NewBooking.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDownTrial() {
+        stopContext();
+    }
+
+    @Benchmark
+    public String stringifyOption() throws JsonProcessingException {
+        return stringify(option);
+    }
+
+    @Benchmark
+    public String stringifyBooking() throws JsonProcessingException {
+        return stringify(booking);
+    }
+
+    @Benchmark
+    public String stringifyNewBooking() throws JsonProcessingException {
+        return stringify(newBooking);
+    }
+
+    @Benchmark
+    public Option parseOption() throws IOException {
+        return optionReader.readValue(optionJson);
+    }
+
+    @Benchmark
+    public Booking parseBooking() throws IOException {
+        return bookingReader.readValue(bookingJson);
+    }
+
+    @Benchmark
+    public NewBooking parseNewBooking() throws IOException {
+        return newBookingReader.readValue(newBookingJson);
+    }
+
+}
@@ -23,37 +23,155 @@
  */
 package de.hsesslingen.keim.efs.test.adapter;
 
+import com.fasterxml.jackson.databind.JavaType;
 import de.hsesslingen.keim.efs.middleware.model.Booking;
 import de.hsesslingen.keim.efs.middleware.model.BookingState;
 import de.hsesslingen.keim.efs.middleware.model.Customer;
 import de.hsesslingen.keim.efs.middleware.model.NewBooking;
 import de.hsesslingen.keim.efs.middleware.model.Option;
 import static de.hsesslingen.keim.efs.test.adapter.AdapterTestBase.assertEqualsIfNotNull;
+import de.hsesslingen.keim.efs.test.adapter.codec.CodecComparison;
+import de.hsesslingen.keim.efs.test.adapter.codec.JacksonCodec;
+import de.hsesslingen.keim.efs.test.adapter.jfr.LifecycleStepEvent;
+import de.hsesslingen.keim.efs.test.adapter.perf.AllocationMeter;
+import de.hsesslingen.keim.efs.test.adapter.perf.ArrivalStage;
+import de.hsesslingen.keim.efs.test.adapter.perf.BoundingBox;
+import de.hsesslingen.keim.efs.test.adapter.perf.Endpoint;
+import de.hsesslingen.keim.efs.test.adapter.perf.EnvironmentFingerprint;
+import de.hsesslingen.keim.efs.test.adapter.perf.HarnessOverheadReport;
+import de.hsesslingen.keim.efs.test.adapter.perf.LatencyRecorder;
+import de.hsesslingen.keim.efs.test.adapter.perf.LoadResult;
+import de.hsesslingen.keim.efs.test.adapter.perf.LoadRunner;
+import de.hsesslingen.keim.efs.test.adapter.perf.OpenLoopLoadGenerator;
+import de.hsesslingen.keim.efs.test.adapter.perf.OpenLoopReport;
+import de.hsesslingen.keim.efs.test.adapter.perf.OptionsSweep;
+import de.hsesslingen.keim.efs.test.adapter.perf.RequestCorpus;
+import de.hsesslingen.keim.efs.test.adapter.perf.ResourceSample;
+import de.hsesslingen.keim.efs.test.adapter.perf.ResourceSampler;
+import de.hsesslingen.keim.efs.test.adapter.perf.RunComparison;
+import de.hsesslingen.keim.efs.test.adapter.perf.RunRecord;
+import de.hsesslingen.keim.efs.test.adapter.perf.RunStore;
+import de.hsesslingen.keim.efs.test.adapter.perf.ScalabilitySweep;
+import de.hsesslingen.keim.efs.test.adapter.perf.TokenBucket;
+import de.hsesslingen.keim.efs.test.adapter.perf.TrendDetector;
+import de.hsesslingen.keim.efs.test.adapter.perf.Workload;
+import de.hsesslingen.keim.efs.test.adapter.provider.FakeProviderServer;
+import de.hsesslingen.keim.efs.test.adapter.provider.Faults;
+import de.hsesslingen.keim.efs.test.adapter.provider.LatencyDistribution;
+import de.hsesslingen.keim.efs.test.adapter.provider.ProviderFaultReport;
+import de.hsesslingen.keim.efs.test.adapter.transport.RequestTransport;
+import java.io.IOException;
+import java.time.Duration;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
 import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 import javax.validation.constraints.NotNull;
+import org.springframework.test.web.servlet.MvcResult;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
+import org.junit.jupiter.api.AfterEach;
+import org.slf4j.Logger;
+import static org.slf4j.LoggerFactory.getLogger;
 import org.springframework.test.web.servlet.ResultMatcher;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 /**
+ * Base class of adapter integration tests.
+ * <p>
+ * The test methods may run concurrently with JUnit's parallel execution,
+ * both within a class and across classes. Shared state is limited to the
+ * thread safe options cache, random values come from {@link #random()}, and
+ * bookings passed to the helper methods are never changed by them. Each test
+ * works on bookings it created itself. To run the tests in parallel, enable
+ * it in the {@code junit-platform.properties} of the adapter, e.g.
+ * <pre>
+ * junit.jupiter.execution.parallel.enabled = true
+ * junit.jupiter.execution.parallel.mode.default = concurrent
+ * junit.jupiter.execution.parallel.mode.classes.default = concurrent
+ * </pre> The load test modes bring their own concurrency and should be
+ * excluded from parallel runs, e.g. with
+ * {@code @Execution(ExecutionMode.SAME_THREAD)} or a separate tag.
+ * <p>
+ * Bookings a test leaves open are closed after it by
+ * {@link #closeTrackedBookings()}. They are tracked per instance, so this
+ * relies on JUnit's default lifecycle of one instance per test method.
  *
  * @author boesch
  */
 public abstract class AdapterIntegrationTest extends AdapterTestBase {
 
-    private static List<Option> cachedOptions; // List is static so it is retained between tests.
+    private static final Logger logger = getLogger(AdapterIntegrationTest.class);
+
+    /**
+     * System property with the file in which the results of the load test
+     * modes are stored. Defaults to {@code efs-perf-results.jsonl} in the
+     * working directory.
+     */
+    public static final String RESULTS_FILE_PROPERTY = "efs.test.results.file";
+
+    /**
+     * System property which makes {@link #testAllocationRegression()} write
+     * the measured allocations to {@link #getAllocationBaselineFile()}
+     * instead of comparing them with it.
+     */
+    public static final String UPDATE_ALLOCATION_BASELINE_PROPERTY = "efs.test.allocation.update-baseline";
+
+    // Cache is static so it is retained between tests.
+    private static final OptionsCache optionsCache = new OptionsCache(Duration.ofMinutes(5), 32);
 
     public static final void clearOptionsCache() {
-        cachedOptions = null;
+        optionsCache.clear();
     }
 
+    /**
+     * @deprecated Shared by all tests running in this instance. Use
+     * {@link #random()} instead. If a subclass assigns its own instance, e.g.
+     * with a fixed seed, {@link #random()} keeps returning it.
+     */
+    @Deprecated
     protected Random random = new Random();
 
+    private final Random initialRandom = random;
+
+    /**
+     * If set, the lifecycle steps performed by this instance are measured and
+     * recorded in here. Only set during load runs.
+     */
+    private volatile LatencyRecorder stepRecorder;
+
+    /**
+     * If set, allocations are accounted in here instead of the shared meter.
+     */
+    private volatile AllocationMeter allocationMeter;
+
+    /**
+     * The tenant the calling thread currently acts for, if any.
+     */
+    private final ThreadLocal<Tenant> currentTenant = new ThreadLocal<>();
+
     protected abstract String getOptionsCredentials();
 
     protected abstract String getBookingCredentials();
@@ -72,151 +190,1705 @@ public abstract class AdapterIntegrationTest extends AdapterTestBase {
 
     protected abstract boolean getSharing();
 
-    //<editor-fold defaultstate="collapsed" desc="Simplified BookingApi methods...">    
-    protected List<Option> getOptions(
-            String fromLatLon, String toLatLon,
-            Instant startTime, Instant endTime,
-            Integer radius, Boolean sharing,
-            ResultMatcher... matchers
-    ) throws Exception {
-        return getOptions(fromLatLon, toLatLon, startTime, endTime, radius, sharing, getOptionsCredentials(), matchers);
+    /**
+     * The tenants the load test modes spread their iterations over. Every
+     * iteration draws a tenant from the pool and sends all its requests with
+     * the credentials and customer of that tenant, and the latency per tenant
+     * is logged after the run. This applies to
+     * {@link #loadTestBookingLifecycles()}, {@link #sweepScalability()} and
+     * {@link #loadTestOptionsArrivalRate()}. Returns null by default, so all
+     * requests use {@link #getOptionsCredentials()},
+     * {@link #getBookingCredentials()} and {@link #getCustomer()}. Override
+     * e.g. with
+     * <pre>
+     * TenantPool.zipf(TenantPool.synthetic(100, (i, id) -&gt; new Tenant(id, token(i), token(i), customer(i))), 1.0)
+     * </pre> Options are cached per credentials, so the options cache should
+     * be larger than the number of tenants.
+     *
+     * @return
+     */
+    protected TenantPool getTenantPool() {
+        return null;
+    }
+
+    /**
+     * The tenant the calling thread acts for during a load run with
+     * {@link #getTenantPool()}, or null.
+     *
+     * @return
+     */
+    protected Tenant currentTenant() {
+        return currentTenant.get();
+    }
+
+    /**
+     * The options credentials of {@link #currentTenant()}, or
+     * {@link #getOptionsCredentials()} if there is none. Used for all
+     * requests of this class.
+     *
+     * @return
+     */
+    protected String optionsCredentials() {
+        var tenant = currentTenant.get();
+        return tenant != null ? tenant.getOptionsCredentials() : getOptionsCredentials();
+    }
+
+    /**
+     * The booking credentials of {@link #currentTenant()}, or
+     * {@link #getBookingCredentials()} if there is none. Used for all
+     * requests of this class.
+     *
+     * @return
+     */
+    protected String bookingCredentials() {
+        var tenant = currentTenant.get();
+        return tenant != null ? tenant.getBookingCredentials() : getBookingCredentials();
+    }
+
+    /**
+     * The customer of {@link #currentTenant()}, or {@link #getCustomer()} if
+     * there is none. Used for all bookings of this class.
+     *
+     * @return
+     */
+    protected Customer customer() {
+        var tenant = currentTenant.get();
+        return tenant != null ? tenant.getCustomer() : getCustomer();
+    }
+
+    /**
+     * The number of booking lifecycles executed by
+     * {@link #loadTestBookingLifecycles()}. Override to change.
+     *
+     * @return
+     */
+    protected int getLoadLifecycles() {
+        return 1000;
+    }
+
+    /**
+     * The number of lifecycles executed at the same time by
+     * {@link #loadTestBookingLifecycles()}. Override to change.
+     *
+     * @return
+     */
+    protected int getLoadConcurrency() {
+        return 100;
+    }
+
+    /**
+     * The maximum time a load run may take before the remaining lifecycles are
+     * interrupted and counted as failed. Override to change.
+     *
+     * @return
+     */
+    protected long getLoadTimeoutMillis() {
+        return 10 * 60 * 1000;
+    }
+
+    /**
+     * The arrival rate stages {@link #loadTestOptionsArrivalRate()} ramps
+     * through. Override to change.
+     *
+     * @return
+     */
+    protected List<ArrivalStage> getOptionsArrivalStages() {
+        return ArrivalStage.ramp(Duration.ofSeconds(30), 1, 2, 5, 10, 20, 50, 100);
+    }
+
+    /**
+     * The 99th percentile of the options response time above which an arrival
+     * rate stage counts as saturated. Override to change.
+     *
+     * @return
+     */
+    protected Duration getOptionsMaxP99() {
+        return Duration.ofSeconds(2);
+    }
+
+    /**
+     * The fraction of failed options requests above which an arrival rate
+     * stage counts as saturated. Override to change.
+     *
+     * @return
+     */
+    protected double getOptionsMaxErrorRatio() {
+        return 0.01;
+    }
+
+    /**
+     * The parameter sweep run by {@link #sweepOptionsSearch()}. By default, a
+     * 3x3 grid over an area of ten times the radius around
+     * {@link #getFromLatLon()} is queried with half, single, double and
+     * fourfold radius, time windows of one and six hours and both sharing
+     * flags. Override to change.
+     *
+     * @return
+     */
+    protected OptionsSweep getOptionsSweep() {
+        int radius = getRadius() != null ? getRadius() : 500;
+
+        return new OptionsSweep()
+                .positions(BoundingBox.around(getFromLatLon(), radius * 10.0).grid(3, 3))
+                .radii(radius / 2, radius, radius * 2, radius * 4)
+                .timeWindows(Duration.ofHours(1), Duration.ofHours(6))
+                .sharing(true, false);
+    }
+
+    /**
+     * The numbers of concurrent workers {@link #sweepScalability()} runs the
+     * workloads with. By default 1, 2, 4, ... up to twice the number of
+     * available processors, so the curve extends past the point where the
+     * cores are used up. Override to change.
+     *
+     * @return
+     */
+    protected List<Integer> getScalabilityConcurrencies() {
+        return ScalabilitySweep.doublingUpTo(2 * Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * The number of iterations {@link #sweepScalability()} runs per worker at
+     * each concurrency, so every level runs about equally long. Override to
+     * change.
+     *
+     * @return
+     */
+    protected int getScalabilityIterationsPerWorker() {
+        return 50;
+    }
+
+    /**
+     * The number of options queries {@link #loadTestPipelinedLifecycles()}
+     * sends at once for every booking, of which the first answer is booked.
+     * Override to change.
+     *
+     * @return
+     */
+    protected int getPipelineOptionsFanOut() {
+        return 3;
+    }
+
+    /**
+     * The number of requests {@link #benchmarkPreSerializedRequests()} builds
+     * ahead of time. Override to change.
+     *
+     * @return
+     */
+    protected int getCorpusSize() {
+        return 1000;
+    }
+
+    /**
+     * Whether {@link #closeTrackedBookings()} runs after each test. Override
+     * and return false to keep the bookings, e.g. for inspection. Returns true
+     * by default.
+     *
+     * @return
+     */
+    protected boolean isClosingTrackedBookings() {
+        return true;
+    }
+
+    /**
+     * The maximum rate at which {@link #closeTrackedBookings()} sends
+     * requests, in requests per second. Override to change.
+     *
+     * @return
+     */
+    protected double getTeardownRatePerSecond() {
+        return 50;
+    }
+
+    /**
+     * The number of bookings {@link #closeTrackedBookings()} closes at the
+     * same time. Override to change.
+     *
+     * @return
+     */
+    protected int getTeardownConcurrency() {
+        return 8;
+    }
+
+    /**
+     * How often {@link #closeTrackedBookings()} retries to close a booking
+     * after an error response. Override to change.
+     *
+     * @return
+     */
+    protected int getTeardownRetries() {
+        return 3;
+    }
+
+    /**
+     * The number of bookings {@link #loadTestGetBookings()} creates before
+     * verifying the state filters. Override to change.
+     *
+     * @return
+     */
+    protected int getBookingsSeedCount() {
+        return 20_000;
+    }
+
+    /**
+     * How often {@link #loadTestGetBookings()} requests getBookings with each
+     * state filter after each batch of seeded bookings. Override to change.
+     *
+     * @return
+     */
+    protected int getBookingsSamplesPerState() {
+        return 10;
+    }
+
+    /**
+     * The file with the allocation baseline used by
+     * {@link #testAllocationRegression()}. Allocations depend on the JDK, the
+     * GC and the heap, so there is one file per
+     * {@link EnvironmentFingerprint#hash()}. It is only written if the system
+     * property {@value #UPDATE_ALLOCATION_BASELINE_PROPERTY} is true and
+     * should be committed along with the tests. Override to change.
+     *
+     * @return
+     */
+    protected Path getAllocationBaselineFile() {
+        return Paths.get("src", "test", "resources", "efs-allocation-baseline-" + EnvironmentFingerprint.hash() + ".properties");
+    }
+
+    /**
+     * How much the allocations per request may exceed the baseline before
+     * {@link #testAllocationRegression()} fails, e.g. 0.2 for 20%. Override to
+     * change.
+     *
+     * @return
+     */
+    protected double getAllocationTolerance() {
+        return 0.2;
+    }
+
+    /**
+     * The number of rounds {@link #testAllocationRegression()} runs. Override
+     * to change.
+     *
+     * @return
+     */
+    protected int getAllocationRounds() {
+        return 50;
+    }
+
+    @Override
+    protected AllocationMeter getAllocationMeter() {
+        var meter = allocationMeter;
+        return meter != null ? meter : super.getAllocationMeter();
+    }
+
+    /**
+     * The number of warm up and of measured operations per payload and codec
+     * in {@link #compareCodecs()}. Override to change.
+     *
+     * @return
+     */
+    protected int getCodecComparisonIterations() {
+        return 2000;
+    }
+
+    /**
+     * The fake provider the adapter under test calls instead of the real
+     * one. Subclasses which want to run {@link #loadTestProviderFaults()}
+     * start it, add the routes of the provider API and configure the adapter
+     * with its base URI. Returns null by default.
+     *
+     * @return
+     */
+    protected FakeProviderServer getFakeProvider() {
+        return null;
+    }
+
+    /**
+     * The conditions of the fake provider under which
+     * {@link #loadTestProviderFaults()} measures the adapter, in the order
+     * they are run. The default covers a healthy provider, a slow one with a
+     * long tail, one with latency spikes, one failing a fifth of all
+     * requests, one dropping connections and one sending its bodies slowly.
+     * Override to change.
+     *
+     * @return
+     */
+    protected Map<String, Faults> getProviderConditions() {
+        var conditions = new LinkedHashMap<String, Faults>();
+        conditions.put("healthy", Faults.none());
+        conditions.put("slow", Faults.none().withLatency(LatencyDistribution.logNormal(Duration.ofMillis(300), Duration.ofSeconds(3))));
+        conditions.put("spiky", Faults.none().withLatency(LatencyDistribution.spikes(
+                LatencyDistribution.uniform(Duration.ofMillis(10), Duration.ofMillis(50)),
+                LatencyDistribution.fixed(Duration.ofSeconds(10)), 0.05)));
+        conditions.put("erroneous", Faults.none().withErrors(0.2, 503));
+        conditions.put("resetting", Faults.none().withResets(0.1));
+        conditions.put("slow body", Faults.none().withSlowBody(512, Duration.ofMillis(200)));
+        return conditions;
+    }
+
+    /**
+     * The number of options requests sent per provider condition in
+     * {@link #loadTestProviderFaults()}. Override to change.
+     *
+     * @return
+     */
+    protected int getProviderFaultRequests() {
+        return 200;
+    }
+
+    /**
+     * The file in which the results of the load test modes are stored and
+     * from which the baselines for comparison are taken. Keep it across
+     * builds to see trends over releases. The default implementation reads
+     * the system property {@value #RESULTS_FILE_PROPERTY}. Override and
+     * return null to store nothing.
+     *
+     * @return
+     */
+    protected Path getResultsFile() {
+        return Paths.get(System.getProperty(RESULTS_FILE_PROPERTY, "efs-perf-results.jsonl"));
+    }
+
+    /**
+     * How stored runs are compared with their predecessors. The default uses
+     * the last 10 runs as baseline, requires 5 of them and flags values
+     * outside the prediction interval, at 99% confidence for the whole run.
+     * Metrics which were 0 in all baseline runs are assumed to vary by at
+     * least 0.001. Override to change.
+     *
+     * @return
+     */
+    protected RunComparison getRunComparison() {
+        return new RunComparison(10, 5, 0.99, 0.01, 0.001);
+    }
+
+    /**
+     * Whether a load test mode fails if a stored run regressed compared with
+     * its baseline. Returns false by default, so regressions are only
+     * reported. Override to change.
+     *
+     * @return
+     */
+    protected boolean isFailingOnRunRegression() {
+        return false;
+    }
+
+    /**
+     * Stored with every run along with the environment, but not used to
+     * decide which runs are comparable. Contains the version of the adapter
+     * by default, taken from the jar of the test class.
+     *
+     * @return
+     */
+    protected Map<String, String> getRunEnvironment() {
+        return Map.of("version.adapter", EnvironmentFingerprint.versionOf(getClass()));
+    }
+
+    /**
+     * How long {@link #soakTestBookingLifecycles()} runs. Override to change.
+     *
+     * @return
+     */
+    protected Duration getSoakDuration() {
+        return Duration.ofMinutes(30);
+    }
+
+    /**
+     * The maximum number of lifecycles run by
+     * {@link #soakTestBookingLifecycles()}. The soak test ends when either this
+     * number or {@link #getSoakDuration()} is reached. Unlimited by default.
+     *
+     * @return
+     */
+    protected long getSoakIterations() {
+        return Long.MAX_VALUE;
+    }
+
+    /**
+     * The interval at which {@link #soakTestBookingLifecycles()} samples the
+     * resource usage of the JVM. Override to change.
+     *
+     * @return
+     */
+    protected Duration getSoakSampleInterval() {
+        return Duration.ofSeconds(30);
+    }
+
+    /**
+     * The growth of a resource over the soak test, relative to its median,
+     * above which a sustained upward trend fails the test. Override to change.
+     *
+     * @return
+     */
+    protected double getSoakMaxRelativeGrowth() {
+        return 0.1;
+    }
+
+    /**
+     * The model the adapter is checked against by
+     * {@link #exploreBookingStateTransitions()}. Override if the adapter
+     * differs from {@link BookingStateModel#standard()}, e.g. if it supports
+     * updates or doesn't support them.
+     *
+     * @return
+     */
+    protected BookingStateModel getBookingStateModel() {
+        return BookingStateModel.standard();
+    }
+
+    /**
+     * The number of random transition sequences run by
+     * {@link #exploreBookingStateTransitions()}. Override to change.
+     *
+     * @return
+     */
+    protected int getExplorationSequences() {
+        return 200;
+    }
+
+    /**
+     * The maximum length of the transition sequences run by
+     * {@link #exploreBookingStateTransitions()}. Override to change.
+     *
+     * @return
+     */
+    protected int getExplorationMaxSteps() {
+        return 8;
+    }
+
+    /**
+     * The seed for generating transition sequences. Override with a fixed
+     * value to repeat a previous run, the seed of each run is logged.
+     *
+     * @return
+     */
+    protected long getExplorationSeed() {
+        return System.currentTimeMillis();
+    }
+
+    /**
+     * The cache used by {@link #getCacheOptions()}. By default, all subclasses
+     * share one cache, which keeps options for five minutes. Override to
+     * return an instance with a different time to live or size. The returned
+     * instance should be static, so it is retained between tests.
+     *
+     * @return
+     */
+    protected OptionsCache getOptionsCache() {
+        return optionsCache;
+    }
+
+    //<editor-fold defaultstate="collapsed" desc="Simplified BookingApi methods...">    
+    protected List<Option> getOptions(
+            String fromLatLon, String toLatLon,
+            Instant startTime, Instant endTime,
+            Integer radius, Boolean sharing,
+            ResultMatcher... matchers
+    ) throws Exception {
+        return getOptions(fromLatLon, toLatLon, startTime, endTime, radius, sharing, optionsCredentials(), matchers);
+    }
+
+    /**
+     * Calls {@link super.getOptions(...)} with values provided in abstract
+     * methods.
+     *
+     * @return
+     * @throws Exception
+     */
+    protected List<Option> getOptions() throws Exception {
+        return getOptions(
+                getFromLatLon(), getToLatLon(),
+                getStartTime(), getEndTime(),
+                getRadius(), getSharing(),
+                optionsCredentials(),
+                status().is2xxSuccessful());
+    }
+
+    protected Booking createBooking(Option option, ResultMatcher... matchers) throws Exception {
+        return createBooking(option, customer(), bookingCredentials(), matchers);
+    }
+
+    protected Booking createBooking(NewBooking newBooking, ResultMatcher... matchers) throws Exception {
+        return createBooking(newBooking, bookingCredentials(), matchers);
+    }
+
+    protected Booking modifyBooking(Booking booking, ResultMatcher... matchers) throws Exception {
+        return modifyBooking(booking, bookingCredentials(), matchers);
+    }
+
+    protected List<Booking> getBookings(BookingState byState, ResultMatcher... matchers) throws Exception {
+        return getBookings(byState, bookingCredentials(), matchers);
+    }
+
+    protected Booking getBookingById(String bookingId, ResultMatcher... matchers) throws Exception {
+        return getBookingById(bookingId, bookingCredentials(), matchers);
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Simplified async BookingApi methods...">
+    /**
+     * Same as {@link #getOptions()} but does not wait for the response.
+     *
+     * @return
+     */
+    protected CompletableFuture<List<Option>> getOptionsAsync() {
+        return getOptionsAsync(
+                getFromLatLon(), getToLatLon(),
+                getStartTime(), getEndTime(),
+                getRadius(), getSharing(),
+                optionsCredentials(),
+                status().is2xxSuccessful());
+    }
+
+    protected CompletableFuture<Booking> createBookingAsync(NewBooking newBooking, ResultMatcher... matchers) {
+        return createBookingAsync(newBooking, bookingCredentials(), matchers);
+    }
+
+    protected CompletableFuture<Booking> modifyBookingAsync(Booking booking, ResultMatcher... matchers) {
+        return modifyBookingAsync(booking, bookingCredentials(), matchers);
+    }
+
+    protected CompletableFuture<List<Booking>> getBookingsAsync(BookingState byState, ResultMatcher... matchers) {
+        return getBookingsAsync(byState, bookingCredentials(), matchers);
+    }
+
+    protected CompletableFuture<Booking> getBookingByIdAsync(String bookingId, ResultMatcher... matchers) {
+        return getBookingByIdAsync(bookingId, bookingCredentials(), matchers);
+    }
+    //</editor-fold>
+
+    /**
+     * Calls {@link super.getCacheOptions(...)} with
+     * {@code status().is2xxSuccessful()} matcher.
+     *
+     * @throws Exception
+     */
+    public void testGetOptions() throws Exception {
+        getCacheOptions();
+    }
+
+    /**
+     * Intended for being overridden and marked as test method.
+     *
+     * @throws Exception
+     */
+    public void book_tryIllegalStates_close_tryAllStates() throws Exception {
+        Booking booking = bookRandomOption();
+
+        Booking closed = null;
+
+        if (booking.getState() == BookingState.BOOKED) {
+            tryModifyBookingForFail(booking, BookingState.NEW);
+            tryModifyBookingForFail(booking, BookingState.BOOKED);
+            tryModifyBookingForFail(booking, BookingState.ABORTED);
+            tryModifyBookingForFail(booking, BookingState.FINISHED);
+
+            closed = tryModifyBookingForSuccess(booking, BookingState.CANCELLED);
+        } else if (booking.getState() == BookingState.STARTED) {
+            tryModifyBookingForFail(booking, BookingState.NEW);
+            tryModifyBookingForFail(booking, BookingState.BOOKED);
+            tryModifyBookingForFail(booking, BookingState.CANCELLED);
+            tryModifyBookingForFail(booking, BookingState.STARTED);
+
+            closed = tryModifyBookingForSuccess(booking, BookingState.FINISHED);
+        }
+
+        // Subsequent calls to modify booking with the returned booking object should fail.
+        for (BookingState state : BookingState.values()) {
+            // Mark this booking for whatever and try a modfiy call...
+            tryModifyBookingForFail(closed, state);
+        }
+    }
+
+    /**
+     * Intended for being overridden and marked as test method.
+     *
+     * @throws Exception
+     */
+    public void book_start_tryIllegalStates_finish_tryAllStates() throws Exception {
+        Booking booking = bookRandomOption();
+
+        Booking started;
+
+        // Only modify to STARTED if the booking did not start in that state.
+        if (booking.getState().equals(BookingState.BOOKED)) {
+            started = tryModifyBookingForSuccess(booking, BookingState.STARTED);
+
+            // The following tests must only be run if the booking came with state BOOKED.
+            // If it had come with state STARTED, the failing tests had already run in book_tryIllegalStates_close_tryAllStates().
+            tryModifyBookingForFail(started, BookingState.NEW);
+            tryModifyBookingForFail(started, BookingState.BOOKED);
+            tryModifyBookingForFail(started, BookingState.CANCELLED);
+            tryModifyBookingForFail(started, BookingState.STARTED);
+        } else {
+            started = booking;
+        } // the function bookRandomOption(...) asserts that the returned booking has states of either BOOKED or STARTED.
+
+        Booking finished = tryModifyBookingForSuccess(started, BookingState.FINISHED);
+
+        // Subsequent calls to modify booking with the returned booking object should fail.
+        for (BookingState state : BookingState.values()) {
+            // Mark this booking for whatever and try a modfiy call...
+            tryModifyBookingForFail(finished, state);
+        }
+    }
+
+    /**
+     * Intended for being overridden and marked as test method.
+     *
+     * @throws Exception
+     */
+    public void book_start_abort_tryAllStates() throws Exception {
+        Booking booking = bookRandomOption();
+
+        Booking started;
+
+        if (booking.getState().equals(BookingState.BOOKED)) {
+            started = tryModifyBookingForSuccess(booking, BookingState.STARTED);
+        } else {
+            started = booking;
+        } // the function bookRandomOption(...) asserts that the returned booking has states of either BOOKED or STARTED so we don't need to check for other states.
+
+        Booking aborted = tryModifyBookingForSuccess(started, BookingState.ABORTED);
+
+        // Subsequent calls to modify booking with the returned booking object should fail.
+        for (BookingState state : BookingState.values()) {
+            // Mark this booking for whatever and try a modfiy call...
+            tryModifyBookingForFail(aborted, state);
+        }
+    }
+
+    /**
+     * Intended for being overridden and marked as test method.
+     * <p>
+     * Runs {@link #getLoadLifecycles()} booking lifecycles against the adapter,
+     * {@link #getLoadConcurrency()} of them at the same time. The lifecycles
+     * are the ones of {@link #book_tryIllegalStates_close_tryAllStates()},
+     * {@link #book_start_tryIllegalStates_finish_tryAllStates()} and
+     * {@link #book_start_abort_tryAllStates()}, executed in turns. Throughput
+     * and latency percentiles of each lifecycle step are logged and the test
+     * fails if any of the lifecycles failed.
+     *
+     * @throws Exception
+     */
+    public void loadTestBookingLifecycles() throws Exception {
+        var allocations = new AllocationMeter();
+        LoadResult result;
+
+        allocationMeter = allocations;
+
+        try {
+            result = runLifecycleLoad(getLoadLifecycles(), getLoadConcurrency());
+        } finally {
+            allocationMeter = null;
+        }
+
+        logger.info("Booking lifecycle load run finished: {}", result);
+
+        if (result.getFailures() > 0) {
+            var first = result.getSampleFailures().isEmpty() ? null : result.getSampleFailures().get(0);
+            fail(result.getFailures() + " of " + result.getIterations() + " booking lifecycles failed.", first);
+        }
+
+        storeRun(startRun("lifecycleLoad")
+                .metric("lifecycles per second", result.getThroughput(), true)
+                .latencies(result.getLatencies())
+                .allocations(allocations));
+    }
+
+    /**
+     * Intended for being overridden and marked as test method.
+     * <p>
+     * Runs {@link #getLoadLifecycles()} booking lifecycles from the test
+     * thread alone, using the async variants of the booking API. Up to
+     * {@link #getLoadConcurrency()} lifecycles are in flight at once. Each
+     * fans out {@link #getPipelineOptionsFanOut()} options queries, books an
+     * option of the first answer and then either cancels the booking or
+     * starts and finishes it. Requests only overlap if the transport sends
+     * them asynchronously, i.e. over HTTP or to async controllers of the
+     * adapter, otherwise the lifecycles run one after another. Throughput and
+     * latency are logged and the test fails if any of the lifecycles failed.
+     * Lifecycles which did not complete within {@link #getLoadTimeoutMillis()}
+     * are cancelled and count as failed.
+     *
+     * @throws Exception
+     */
+    public void loadTestPipelinedLifecycles() throws Exception {
+        int lifecycles = getLoadLifecycles();
+        var inFlight = new Semaphore(getLoadConcurrency());
+        var recorder = new LatencyRecorder();
+        var failures = new AtomicInteger();
+        var sampleFailures = Collections.synchronizedList(new ArrayList<Throwable>());
+        var futures = new ArrayList<CompletableFuture<?>>(lifecycles);
+
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(getLoadTimeoutMillis());
+
+        for (int i = 0; i < lifecycles; ++i) {
+            if (!inFlight.tryAcquire(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                logger.warn("Pipelined lifecycles stalled, only {} of {} were started within {}ms.", i, lifecycles, getLoadTimeoutMillis());
+                break;
+            }
+
+            long lifecycleStart = System.nanoTime();
+            boolean cancel = i % 2 == 0;
+
+            futures.add(bookFirstOptionAsync(getPipelineOptionsFanOut())
+                    .thenCompose(booking -> closeBookingAsync(booking, cancel))
+                    .whenComplete((closed, ex) -> {
+                        recorder.recordSince(LoadRunner.ITERATION, lifecycleStart);
+
+                        if (ex != null) {
+                            failures.incrementAndGet();
+                            if (sampleFailures.size() < 10) {
+                                sampleFailures.add(ex);
+                            }
+                        }
+
+                        inFlight.release();
+                    }));
+        }
+
+        var all = CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new));
+
+        try {
+            all.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (ExecutionException | TimeoutException ex) {
+            // Failures are counted per lifecycle, lifecycles still pending count as failed.
+        }
+
+        int pending = 0;
+        for (var future : futures) {
+            if (future.cancel(true)) {
+                ++pending;
+            }
+        }
+
+        if (pending > 0) {
+            // Their bookings are tracked, so the tear down closes the ones which were created.
+            logger.warn("Cancelled {} pipelined lifecycles still pending after {}ms.", pending, getLoadTimeoutMillis());
+        }
+
+        int notStarted = lifecycles - futures.size();
+        var result = new LoadResult(lifecycles, getLoadConcurrency(), failures.get() + pending + notStarted,
+                new ArrayList<>(sampleFailures), System.nanoTime() - start, recorder);
+
+        logger.info("Pipelined booking lifecycle load run finished: {}", result);
+
+        if (result.getFailures() > 0) {
+            var first = result.getSampleFailures().isEmpty() ? null : result.getSampleFailures().get(0);
+            fail(result.getFailures() + " of " + lifecycles + " pipelined booking lifecycles failed.", first);
+        }
+
+        storeRun(startRun("pipelinedLifecycles")
+                .metric("lifecycles per second", result.getThroughput(), true)
+                .latencies(recorder));
+    }
+
+    /**
+     * Sends the given number of options queries at once and books a random
+     * option of the first query which returns any. Fails if none of them does.
+     *
+     * @param queries
+     * @return
+     */
+    protected CompletableFuture<Booking> bookFirstOptionAsync(int queries) {
+        var customer = customer();
+        var first = new CompletableFuture<List<Option>>();
+        var answers = new ArrayList<CompletableFuture<Void>>(queries);
+
+        for (int i = 0; i < queries; ++i) {
+            answers.add(getOptionsAsync().thenAccept(options -> {
+                if (options != null && !options.isEmpty()) {
+                    first.complete(options);
+                }
+            }));
+        }
+
+        CompletableFuture.allOf(answers.toArray(CompletableFuture[]::new)).whenComplete((ignored, ex) -> {
+            if (ex != null) {
+                first.completeExceptionally(ex);
+            } else {
+                first.completeExceptionally(new IllegalStateException("None of " + queries + " options queries returned an option."));
+            }
+        });
+
+        return first.thenCompose(options -> {
+            Option option = options.get(random().nextInt(options.size()));
+            return createBookingAsync(optionsToNewBooking(option, customer), status().is2xxSuccessful());
+        });
+    }
+
+    /**
+     * Cancels the given booking if asked to and it was not started yet.
+     * Otherwise starts it if necessary and finishes it.
+     *
+     * @param booking
+     * @param cancel
+     * @return
+     */
+    private CompletableFuture<Booking> closeBookingAsync(Booking booking, boolean cancel) {
+        if (booking.getState() != BookingState.BOOKED) {
+            return modifyBookingStateAsync(booking, BookingState.FINISHED);
+        }
+
+        if (cancel) {
+            return modifyBookingStateAsync(booking, BookingState.CANCELLED);
+        }
+
+        return modifyBookingStateAsync(booking, BookingState.STARTED)
+                .thenCompose(started -> modifyBookingStateAsync(started, BookingState.FINISHED));
+    }
+
+    /**
+     * Requests the given state on a copy of the given booking without waiting
+     * for the response. Expects the request to succeed.
+     *
+     * @param booking
+     * @param state
+     * @return
+     */
+    protected CompletableFuture<Booking> modifyBookingStateAsync(Booking booking, BookingState state) {
+        Booking modified;
+
+        try {
+            modified = copy(booking, Booking.class);
+        } catch (IOException ex) {
+            return CompletableFuture.failedFuture(ex);
+        }
+
+        modified.setState(state);
+
+        if (state == BookingState.FINISHED || state == BookingState.ABORTED) {
+            // Set something for the "to" value. It can't be null if finishing or aborting.
+            modified.getLeg().setTo(modified.getLeg().getFrom());
+        }
+
+        return modifyBookingAsync(modified, status().is2xxSuccessful());
+    }
+
+    /**
+     * Intended for being overridden and marked as test method.
+     * <p>
+     * Runs random sequences of state modifications against the model of
+     * {@link #getBookingStateModel()}, many bookings at the same time. Every
+     * failing sequence is shrunk to a minimal sequence which still fails, the
+     * test fails with the shortest one. Sequences which did not finish within
+     * {@link #getLoadTimeoutMillis()} count as failing.
+     *
+     * @throws Exception
+     */
+    public void exploreBookingStateTransitions() throws Exception {
+        // Fetch the options once, so the workers don't all race for them.
+        getCacheOptions();
+
+        var model = getBookingStateModel();
+        var explorer = new TransitionExplorer(model, sequence -> runTransitionSequence(model, sequence), getLoadConcurrency(), getLoadTimeoutMillis());
+        var failures = explorer.explore(getExplorationSequences(), getExplorationMaxSteps(), getExplorationSeed());
+
+        if (!failures.isEmpty()) {
+            var sb = new StringBuilder();
+            failures.forEach(f -> sb.append("\n  ").append(f));
+            fail(failures.size() + " of " + getExplorationSequences() + " transition sequences failed. Minimal failing sequences:" + sb);
+        }
+    }
+
+    /**
+     * Intended for being overridden and marked as test method.
+     * <p>
+     * Sends options requests at the constant arrival rates of
+     * {@link #getOptionsArrivalStages()}, independent of how fast the adapter
+     * answers, and logs response times, achieved throughput, error ratio and
+     * the stage at which the adapter saturated. A stage with more than
+     * {@link #getOptionsMaxErrorRatio()} failed requests counts as saturated.
+     *
+     * @throws Exception
+     */
+    public void loadTestOptionsArrivalRate() throws Exception {
+        var report = runOptionsArrivalRate(getOptionsArrivalStages());
+        logger.info("Open-loop options load run finished:{}", report);
+
+        var run = startRun("optionsArrivalRate")
+                .metric("max sustainable options per second", report.getMaxSustainableRate(), true);
+
+        for (var stage : report.getStages()) {
+            var name = String.format(Locale.ROOT, "options at %.0f/s", stage.getStage().getRatePerSecond());
+            run.metric(name + " error ratio", stage.getErrorRatio(), false);
+
+            if (!stage.isSaturated()) {
+                run.latency(name, stage.getResponseTime());
+            }
+        }
+
+        storeRun(run);
+    }
+
+    /**
+     * Intended for being overridden and marked as test method.
+     * <p>
+     * Sends {@link #getProviderFaultRequests()} options requests under each
+     * condition of {@link #getProviderConditions()}, applied to all routes of
+     * {@link #getFakeProvider()}, and logs the latency and failure ratio of
+     * the adapter along with the provider requests it made per request. This
+     * shows whether timeouts, retries and circuit breakers of the adapter
+     * keep its latency bounded when the provider degrades. Does nothing if
+     * there is no fake provider.
+     *
+     * @throws Exception
+     */
+    public void loadTestProviderFaults() throws Exception {
+        var provider = getFakeProvider();
+
+        if (provider == null) {
+            logger.warn("Skipping provider fault test, there is no fake provider.");
+            return;
+        }
+
+        var report = runProviderFaults(provider, getProviderConditions(), getProviderFaultRequests());
+        logger.info("Provider fault run finished:{}", report);
+    }
+
+    /**
+     * Sends the given number of options requests under each of the given
+     * conditions, at most {@link #getLoadConcurrency()} at a time. Options
+     * are not taken from the cache. The faults of the provider are reset
+     * afterwards.
+     *
+     * @param provider
+     * @param conditions
+     * @param requests
+     * @return
+     * @throws Exception
+     */
+    protected ProviderFaultReport runProviderFaults(FakeProviderServer provider, Map<String, Faults> conditions, int requests) throws Exception {
+        var report = new ProviderFaultReport();
+
+        try {
+            for (var condition : conditions.entrySet()) {
+                provider.setFaults(condition.getValue());
+                provider.resetCounters();
+
+                var recorder = new LatencyRecorder();
+                var result = new LoadRunner(getLoadConcurrency(), getLoadTimeoutMillis(), recorder).run(requests, i -> () -> {
+                    var builder = buildGetOptionsRequest(
+                            getFromLatLon(), getToLatLon(),
+                            getStartTime(), getEndTime(),
+                            getRadius(), getSharing(),
+                            optionsCredentials()
+                    );
+
+                    int status = request(builder).getResponse().getStatus();
+
+                    if (status / 100 != 2) {
+                        throw new IllegalStateException("Options request returned status " + status + ".");
+                    }
+                });
+
+                report.add(condition.getKey(), condition.getValue(), requests, result.getFailures(),
+                        provider.getHits(), recorder.getSummary(LoadRunner.ITERATION));
+            }
+        } finally {
+            provider.setFaults(Faults.none());
+        }
+
+        return report;
+    }
+
+    /**
+     * Intended for being overridden and marked as test method.
+     * <p>
+     * Runs the booking lifecycles of {@link #loadTestBookingLifecycles()} and
+     * uncached options requests at each concurrency of
+     * {@link #getScalabilityConcurrencies()} and fits the throughputs to the
+     * Universal Scalability Law. Logs throughput, efficiency and p99 per
+     * concurrency along with the contention and coherency coefficients, which
+     * tell where adding cores to an adapter node stops helping. The
+     * coefficients are stored with the run. Fails if any of the requests
+     * failed, without storing the run.
+     *
+     * @throws Exception
+     */
+    public void sweepScalability() throws Exception {
+        var concurrencies = getScalabilityConcurrencies();
+        int perWorker = getScalabilityIterationsPerWorker();
+
+        // Warm up once at the highest concurrency, so the first level does not pay for it.
+        runLifecycleLoad(concurrencies.get(concurrencies.size() - 1), concurrencies.get(concurrencies.size() - 1));
+
+        var lifecycles = new ScalabilitySweep("booking lifecycles")
+                .run(concurrencies, n -> runLifecycleLoad(n * perWorker, n));
+        var options = new ScalabilitySweep("options")
+                .run(concurrencies, n -> runOptionsLoad(n * perWorker, n));
+
+        logger.info("Scalability sweep finished:{}{}", lifecycles.report(), options.report());
+
+        var run = startRun("scalability");
+        var failures = new ArrayList<String>();
+
+        for (var sweep : List.of(lifecycles, options)) {
+            var law = sweep.fit();
+
+            run.metric(sweep.getName() + " lambda", law.getLambda(), true)
+                    .metric(sweep.getName() + " sigma", law.getSigma(), false)
+                    .metric(sweep.getName() + " kappa", law.getKappa(), false);
+
+            for (var point : sweep.getPoints()) {
+                if (point.getFailures() > 0) {
+                    failures.add(point.getFailures() + " " + sweep.getName() + " at concurrency " + point.getConcurrency());
+                }
+            }
+        }
+
+        // Failing requests are fast and inflate the throughput, so a failed sweep must not become part of the baseline.
+        if (!failures.isEmpty()) {
+            fail("Requests failed during the scalability sweep: " + String.join(", ", failures));
+        }
+
+        storeRun(run);
+    }
+
+    /**
+     * Intended for being overridden and marked as test method.
+     * <p>
+     * Builds a corpus of {@link #getCorpusSize()} requests ahead of time,
+     * options queries, new bookings, getBookingById and getBookings by state
+     * in turns, and then dispatches them one after another directly through
+     * the transport. Responses are only parsed after all requests were sent.
+     * Requests are prepared before the dispatch is timed. Logs per endpoint
+     * the CPU time the harness spends on building and parsing next to the
+     * wall clock time spent in the adapter. The bookings created are closed
+     * afterwards.
+     *
+     * @throws Exception
+     */
+    public void benchmarkPreSerializedRequests() throws Exception {
+        getCacheOptions();
+
+        var seeded = new ArrayList<Booking>();
+        for (int i = 0; i < Math.max(1, getCorpusSize() / 50); ++i) {
+            seeded.add(bookRandomOption());
+        }
+
+        var corpus = buildRequestCorpus(getCorpusSize(), seeded);
+        var entries = corpus.getEntries();
+        var report = new HarnessOverheadReport();
+        var results = new MvcResult[entries.size()];
+        var transport = getTransport();
+
+        try {
+            // Warm up with the read only requests.
+            for (var entry : entries) {
+                if (entry.getEndpoint().startsWith("GET ")) {
+                    transport.perform(entry.toBuilder());
+                }
+            }
+
+            for (int i = 0; i < entries.size(); ++i) {
+                var entry = entries.get(i);
+
+                long cpu = RequestCorpus.currentThreadCpuNanos();
+                var builder = corpus.prepare(entry);
+                long prepare = RequestCorpus.currentThreadCpuNanos() - cpu;
+
+                long start = System.nanoTime();
+                results[i] = transport.perform(builder);
+                report.record(entry.getEndpoint(), entry.getBuildCpuNanos(), prepare, System.nanoTime() - start);
+            }
+
+            parseCorpusResponses(entries, results, report);
+        } finally {
+            closeCorpusBookings(entries, results, seeded);
+        }
+
+        logger.info("Dispatched corpus of {} requests with {} body bytes:\n{}", corpus.size(), corpus.getBodyBytes(), report);
+
+        var run = startRun("preSerializedRequests");
+
+        for (var endpoint : report.getEndpoints()) {
+            run.latency(endpoint + " adapter", report.getSummary(endpoint, HarnessOverheadReport.DISPATCH))
+                    .metric(endpoint + " harness cpu ms", report.getHarnessCpuNanos(endpoint) / 1_000_000.0, false);
+        }
+
+        storeRun(run);
+    }
+
+    /**
+     * Builds the given number of requests, options queries, new bookings,
+     * getBookingById for the given bookings and getBookings by state in turns,
+     * and measures the CPU time it takes to build each of them.
+     *
+     * @param size
+     * @param bookings The bookings to query by id, must not be empty.
+     * @return
+     * @throws Exception
+     */
+    protected RequestCorpus buildRequestCorpus(int size, List<Booking> bookings) throws Exception {
+        var corpus = new RequestCorpus();
+        var states = BookingState.values();
+
+        for (int i = 0; i < size; ++i) {
+            long cpu = RequestCorpus.currentThreadCpuNanos();
+            MockHttpServletRequestBuilder builder;
+
+            switch (i % 4) {
+                case 0:
+                    builder = buildGetOptionsRequest(
+                            getFromLatLon(), getToLatLon(),
+                            getStartTime(), getEndTime(),
+                            getRadius(), getSharing(),
+                            optionsCredentials());
+                    break;
+                case 1:
+                    builder = buildCreateBookingRequest(optionsToNewBooking(getRandomCachedOption(), customer()), bookingCredentials());
+                    break;
+                case 2:
+                    builder = buildGetBookingByIdRequest(bookings.get(i % bookings.size()).getId(), bookingCredentials());
+                    break;
+                default:
+                    builder = buildGetBookingsRequest(states[i % states.length], bookingCredentials());
+            }
+
+            corpus.add(builder, RequestCorpus.currentThreadCpuNanos() - cpu);
+        }
+
+        return corpus;
+    }
+
+    /**
+     * Parses the responses of the corpus, recording the CPU time per
+     * response, and fails if any request did not succeed.
+     */
+    private void parseCorpusResponses(List<RequestCorpus.Entry> entries, MvcResult[] results, HarnessOverheadReport report) throws Exception {
+        int failed = 0;
+
+        for (int i = 0; i < entries.size(); ++i) {
+            var result = results[i];
+
+            if (result.getResponse().getStatus() / 100 != 2) {
+                ++failed;
+                continue;
+            }
+
+            var endpoint = entries.get(i).getEndpoint();
+
+            long cpu = RequestCorpus.currentThreadCpuNanos();
+            parse(result, corpusResponseType(endpoint));
+            report.recordParse(endpoint, RequestCorpus.currentThreadCpuNanos() - cpu);
+        }
+
+        if (failed > 0) {
+            fail(failed + " of " + entries.size() + " requests of the corpus did not return a 2xx status.");
+        }
+    }
+
+    private JavaType corpusResponseType(String endpoint) {
+        var types = mapper.getTypeFactory();
+
+        return endpoint.endsWith(Endpoint.OPTIONS)
+                ? types.constructCollectionType(List.class, Option.class)
+                : endpoint.equals("GET " + Endpoint.BOOKINGS)
+                ? types.constructCollectionType(List.class, Booking.class)
+                : types.constructType(Booking.class);
+    }
+
+    /**
+     * Closes the seeded bookings and the ones created by the corpus, also if
+     * dispatching or parsing failed. Errors are only logged, so they don't
+     * hide the failure of the test.
+     */
+    private void closeCorpusBookings(List<RequestCorpus.Entry> entries, MvcResult[] results, List<Booking> seeded) {
+        var created = new ArrayList<Booking>(seeded);
+        var bookingType = mapper.constructType(Booking.class);
+
+        for (int i = 0; i < entries.size(); ++i) {
+            var result = results[i];
+
+            if (result == null || result.getResponse().getStatus() / 100 != 2 || !entries.get(i).getEndpoint().equals("POST " + Endpoint.BOOKINGS)) {
+                continue;
+            }
+
+            try {
+                created.add(readerFor(result, bookingType).readValue(result.getResponse().getContentAsByteArray()));
+            } catch (IOException ex) {
+                logger.warn("Could not read booking created by the request corpus.", ex);
+            }
+        }
+
+        for (Booking booking : created) {
+            try {
+                tryCloseBooking(booking);
+            } catch (Exception ex) {
+                logger.warn("Could not close booking {} of the request corpus.", booking.getId(), ex);
+            }
+        }
+    }
+
+    /**
+     * Intended for being overridden and marked as test method.
+     * <p>
+     * Runs the sweep of {@link #getOptionsSweep()} and logs latency and
+     * response size over the number of returned options, along with the
+     * exponent at which latency grows with the result size. All samples are
+     * written to {@code target/efs-options-sweep.csv} for plotting.
+     *
+     * @throws Exception
+     */
+    public void sweepOptionsSearch() throws Exception {
+        var sweep = runOptionsSweep(getOptionsSweep());
+        var file = Paths.get("target", "efs-options-sweep.csv");
+
+        sweep.writeCsv(file);
+        logger.info("Options sweep finished, samples written to {}:\n{}", file.toAbsolutePath(), sweep.report());
+    }
+
+    /**
+     * Intended for being overridden and marked as test method.
+     * <p>
+     * Compares JSON, Smile and CBOR on payloads taken from the adapter: the
+     * full options list of {@link #getOptions()}, a single option, a new
+     * booking and a booking. Logs bytes on the wire and encode/decode times
+     * per codec and writes them to {@code target/efs-codec-comparison.csv}.
+     * Fails if a codec does not reproduce its own encoding after a round trip.
+     *
+     * @throws Exception
+     */
+    public void compareCodecs() throws Exception {
+        List<Option> options = getOptions();
+        assertTrue(!options.isEmpty(), "The adapter returned no options to compare the codecs with.");
+
+        Option option = options.get(0);
+        Booking booking = bookRandomOption();
+
+        try {
+            var types = mapper.getTypeFactory();
+            var comparison = new CodecComparison(JacksonCodec.all(mapper), getCodecComparisonIterations(), getCodecComparisonIterations())
+                    .add("options[" + options.size() + "]", options, types.constructCollectionType(List.class, Option.class))
+                    .add("option", option, types.constructType(Option.class))
+                    .add("newBooking", optionsToNewBooking(option, customer()), types.constructType(NewBooking.class))
+                    .add("booking", booking, types.constructType(Booking.class));
+
+            var results = comparison.run();
+            var file = Paths.get("target", "efs-codec-comparison.csv");
+
+            comparison.writeCsv(file);
+            logger.info("Codec comparison finished, results written to {}:\n{}", file.toAbsolutePath(), comparison.report());
+
+            for (var result : results) {
+                assertTrue(result.isLossless(), "Codec " + result.getCodec() + " does not round trip " + result.getSample() + ".");
+            }
+        } finally {
+            tryCloseBooking(booking);
+        }
+    }
+
+    /**
+     * Intended for being overridden and marked as test method.
+     * <p>
+     * Books and closes options in a loop until {@link #getSoakDuration()} or
+     * {@link #getSoakIterations()} is reached, alternately cancelling and
+     * finishing the bookings. Meanwhile, heap after GC, thread count, open
+     * file descriptors and loaded classes are sampled. The first fifth of the
+     * samples is treated as warm up, the test fails if any of the resources
+     * shows a sustained upward trend in the rest.
+     *
+     * @throws Exception
+     */
+    public void soakTestBookingLifecycles() throws Exception {
+        long deadline = System.nanoTime() + getSoakDuration().toNanos();
+        long iterations = 0;
+        List<ResourceSample> samples;
+
+        var sampler = new ResourceSampler(true).start(getSoakSampleInterval());
+
+        try {
+            while (iterations < getSoakIterations() && System.nanoTime() < deadline) {
+                Booking booking = bookRandomOption();
+
+                if (iterations % 2 == 0 && booking.getState() == BookingState.BOOKED) {
+                    tryModifyBookingForSuccess(booking, BookingState.CANCELLED);
+                } else {
+                    Booking started = booking.getState() == BookingState.BOOKED
+                            ? tryModifyBookingForSuccess(booking, BookingState.STARTED)
+                            : booking;
+                    tryModifyBookingForSuccess(started, BookingState.FINISHED);
+                }
+
+                ++iterations;
+            }
+        } finally {
+            samples = sampler.stop();
+        }
+
+        var steady = samples.subList(samples.size() / 5, samples.size());
+        var detector = new TrendDetector(8, getSoakMaxRelativeGrowth());
+        var report = new StringBuilder();
+        boolean growing = false;
+
+        for (ResourceSample.Metric metric : ResourceSample.Metric.values()) {
+            long[] values = steady.stream().mapToLong(sample -> sample.get(metric)).toArray();
+
+            if (values.length == 0 || values[0] < 0) {
+                // Not available on this platform.
+                continue;
+            }
+
+            var trend = detector.analyze(values);
+            growing |= trend.isGrowing();
+
+            report.append(String.format("%n  %-22s %s, first=%d last=%d", metric, trend, values[0], values[values.length - 1]));
+        }
+
+        logger.info("Soak test finished after {} lifecycles with {} samples:{}", iterations, samples.size(), report);
+
+        if (growing) {
+            fail("Resource usage kept growing during the soak test:" + report);
+        }
+    }
+
+    /**
+     * Intended for being overridden and marked as test method.
+     * <p>
+     * Creates {@link #getBookingsSeedCount()} bookings in ten batches, leaving
+     * them in a mix of all states a stored booking can have. After each batch,
+     * getBookings is requested {@link #getBookingsSamplesPerState()} times
+     * with every state filter, so the log shows how the latency percentiles
+     * grow with the number of bookings. Finally, the result of every state
+     * filter is verified against the states of the seeded bookings, all
+     * filters in parallel, using hash based comparisons. Bookings of tests
+     * running in parallel don't affect the verification. The seeded bookings
+     * which are still open are closed at {@link #getLoadConcurrency()}
+     * without rate limit.
+     *
+     * @throws Exception
+     */
+    public void loadTestGetBookings() throws Exception {
+        // Fetch the options once, so the workers don't all race for them.
+        getCacheOptions();
+
+        int batches = 10;
+        int perBatch = Math.max(1, getBookingsSeedCount() / batches);
+        var growth = new StringBuilder();
+        var own = new ConcurrentHashMap<String, BookingState>();
+        int seeded = 0;
+
+        for (int batch = 0; batch < batches; ++batch) {
+            var result = new LoadRunner(getLoadConcurrency(), getLoadTimeoutMillis(), new LatencyRecorder())
+                    .run(perBatch, i -> () -> {
+                        Booking booking = seedBooking(i);
+                        own.put(booking.getId(), booking.getState());
+                    });
+
+            if (result.getFailures() > 0) {
+                var first = result.getSampleFailures().isEmpty() ? null : result.getSampleFailures().get(0);
+                fail(result.getFailures() + " of " + perBatch + " bookings could not be seeded.", first);
+            }
+
+            seeded += perBatch;
+            growth.append(String.format("%n  after %d seeded bookings:", seeded));
+
+            for (BookingState state : BookingState.values()) {
+                var latencies = new LatencyRecorder();
+
+                for (int i = 0; i < getBookingsSamplesPerState(); ++i) {
+                    long start = System.nanoTime();
+                    getBookings(state, bookingCredentials(), status().is2xxSuccessful());
+                    latencies.recordSince(state.name(), start);
+                }
+
+                var summary = latencies.getSummary(state.name());
+                growth.append(String.format(Locale.ROOT, "%n    %-10s p50=%.1fms p90=%.1fms max=%.1fms",
+                        state, summary.getP50() / 1_000_000.0, summary.getP90() / 1_000_000.0, summary.getMax() / 1_000_000.0));
+            }
+        }
+
+        logger.info("Latency of getBookings by state filter, {} samples each:{}", getBookingsSamplesPerState(), growth);
+
+        List<String> problems;
+        try {
+            problems = verifyBookingStateFilters(own);
+        } finally {
+            // Close the seeded bookings as fast as they were created, the rate limited tear down would take minutes.
+            closeTrackedBookings(null, getLoadConcurrency());
+        }
+
+        if (!problems.isEmpty()) {
+            fail("State filters of getBookings returned wrong results:\n  " + String.join("\n  ", problems));
+        }
     }
 
     /**
-     * Calls {@link super.getOptions(...)} with values provided in abstract
-     * methods.
+     * Books a random option and leaves it in a state depending on the given
+     * index: 40% booked, 20% cancelled, 20% started, 10% finished and 10%
+     * aborted.
      *
-     * @return
+     * @param index
+     * @return the booking in its final state.
      * @throws Exception
      */
-    protected List<Option> getOptions() throws Exception {
-        return getOptions(
-                getFromLatLon(), getToLatLon(),
-                getStartTime(), getEndTime(),
-                getRadius(), getSharing(),
-                getOptionsCredentials(),
-                status().is2xxSuccessful());
-    }
+    private Booking seedBooking(int index) throws Exception {
+        Booking booking = bookRandomOption();
+        int slot = index % 10;
 
-    protected Booking createBooking(Option option, ResultMatcher... matchers) throws Exception {
-        return createBooking(option, getCustomer(), getBookingCredentials(), matchers);
-    }
+        if (slot < 4) {
+            return booking;
+        }
 
-    protected Booking createBooking(NewBooking newBooking, ResultMatcher... matchers) throws Exception {
-        return createBooking(newBooking, getBookingCredentials(), matchers);
-    }
+        if (slot < 6 && booking.getState() == BookingState.BOOKED) {
+            return tryModifyBookingForSuccess(booking, BookingState.CANCELLED);
+        }
 
-    protected Booking modifyBooking(Booking booking, ResultMatcher... matchers) throws Exception {
-        return modifyBooking(booking, getBookingCredentials(), matchers);
-    }
+        Booking started = booking.getState() == BookingState.BOOKED
+                ? tryModifyBookingForSuccess(booking, BookingState.STARTED)
+                : booking;
 
-    protected List<Booking> getBookings(BookingState byState, ResultMatcher... matchers) throws Exception {
-        return getBookings(byState, getBookingCredentials(), matchers);
-    }
+        if (slot == 8) {
+            return tryModifyBookingForSuccess(started, BookingState.FINISHED);
+        } else if (slot == 9) {
+            return tryModifyBookingForSuccess(started, BookingState.ABORTED);
+        }
 
-    protected Booking getBookingById(String bookingId, ResultMatcher... matchers) throws Exception {
-        return getBookingById(bookingId, getBookingCredentials(), matchers);
+        return started;
     }
-    //</editor-fold>
 
     /**
-     * Calls {@link super.getCacheOptions(...)} with
-     * {@code status().is2xxSuccessful()} matcher.
+     * Closes all bookings this test created which are still open, see
+     * {@link #getBookingRegistry()}. Runs after each test if
+     * {@link #isClosingTrackedBookings()}. Booked bookings are cancelled,
+     * started ones aborted, {@link #getTeardownConcurrency()} at a time and
+     * at most {@link #getTeardownRatePerSecond()} requests per second. On
+     * error responses, the booking is looked up again and closing is retried
+     * with exponential backoff, unless it was closed in between. Bookings
+     * which could not be closed are logged, the test does not fail because
+     * of them. The requests are sent with {@link #getTeardownTransport()}, so
+     * they don't show up in the metrics, the SLO, JFR or the record file.
      *
      * @throws Exception
      */
-    public void testGetOptions() throws Exception {
-        getCacheOptions();
+    @AfterEach
+    public void closeTrackedBookings() throws Exception {
+        closeTrackedBookings(new TokenBucket(getTeardownRatePerSecond(), getTeardownConcurrency()), getTeardownConcurrency());
     }
 
     /**
-     * Intended for being overridden and marked as test method.
+     * Same as {@link #closeTrackedBookings()}, but with the given rate limit
+     * and concurrency. Tests which created many bookings at full speed can use
+     * this to close them at the same speed.
      *
+     * @param bucket Limits the rate of requests, or null for no limit.
+     * @param concurrency
      * @throws Exception
      */
-    public void book_tryIllegalStates_close_tryAllStates() throws Exception {
-        Booking booking = bookRandomOption();
+    protected void closeTrackedBookings(TokenBucket bucket, int concurrency) throws Exception {
+        var registry = getBookingRegistry();
+        var transport = getTeardownTransport();
 
-        Booking closed = null;
+        if (!isClosingTrackedBookings() || registry == null || registry.size() == 0 || transport == null) {
+            return;
+        }
 
-        if (booking.getState() == BookingState.BOOKED) {
-            tryModifyBookingForFail(booking, BookingState.NEW);
-            tryModifyBookingForFail(booking, BookingState.BOOKED);
-            tryModifyBookingForFail(booking, BookingState.ABORTED);
-            tryModifyBookingForFail(booking, BookingState.FINISHED);
+        var open = registry.getOpen();
+        var runner = new LoadRunner(concurrency, getLoadTimeoutMillis(), new LatencyRecorder());
 
-            closed = tryModifyBookingForSuccess(booking, BookingState.CANCELLED);
-        } else if (booking.getState() == BookingState.STARTED) {
-            tryModifyBookingForFail(booking, BookingState.NEW);
-            tryModifyBookingForFail(booking, BookingState.BOOKED);
-            tryModifyBookingForFail(booking, BookingState.CANCELLED);
-            tryModifyBookingForFail(booking, BookingState.STARTED);
+        long start = System.nanoTime();
+        var result = runner.run(open.size(), i -> () -> closeTracked(open.get(i), transport, bucket));
 
-            closed = tryModifyBookingForSuccess(booking, BookingState.FINISHED);
+        if (result.getFailures() > 0) {
+            logger.warn("Could not close {} of {} bookings left open by the test, e.g.: {}", result.getFailures(), open.size(), result.getSampleFailures());
+        } else {
+            logger.info("Closed {} bookings left open by the test in {}ms.", open.size(), (System.nanoTime() - start) / 1_000_000);
         }
+    }
 
-        // Subsequent calls to modify booking with the returned booking object should fail.
-        for (BookingState state : BookingState.values()) {
-            // Mark this booking for whatever and try a modfiy call...
-            tryModifyBookingForFail(closed, state);
+    private void closeTracked(BookingRegistry.Tracked tracked, RequestTransport transport, TokenBucket bucket) throws Exception {
+        Booking booking = tracked.getBooking();
+        JavaType bookingType = mapper.constructType(Booking.class);
+
+        for (int attempt = 0;; ++attempt) {
+            BookingState closingState = booking.getState() == BookingState.STARTED ? BookingState.ABORTED : BookingState.CANCELLED;
+            Booking closing = copy(booking, Booking.class);
+            closing.setState(closingState);
+
+            if (closingState == BookingState.ABORTED) {
+                // Set something for the "to" value. It can't be null if aborting.
+                closing.getLeg().setTo(closing.getLeg().getFrom());
+            }
+
+            if (bucket != null) {
+                bucket.acquire();
+            }
+            MvcResult result = transport.perform(buildModifyBookingRequest(closing, getCodec().encode(closing), tracked.getCredentials()));
+            int status = result.getResponse().getStatus();
+
+            if (status / 100 == 2) {
+                getBookingRegistry().forget(booking.getId());
+                return;
+            }
+
+            if (attempt >= getTeardownRetries()) {
+                throw new IllegalStateException("Closing booking " + booking.getId() + " returned status " + status + " after " + (attempt + 1) + " attempts.");
+            }
+
+            // Exponential backoff with jitter, starting at 100ms.
+            long backoff = 100L << attempt;
+            Thread.sleep(backoff + random().nextInt((int) backoff));
+
+            // The state may have changed in between, e.g. by a rejected modification.
+            if (bucket != null) {
+                bucket.acquire();
+            }
+            MvcResult lookup = transport.perform(buildGetBookingByIdRequest(booking.getId(), tracked.getCredentials()));
+
+            if (lookup.getResponse().getStatus() / 100 == 2) {
+                Booking current = readerFor(lookup, bookingType).readValue(lookup.getResponse().getContentAsByteArray());
+
+                if (current != null && BookingRegistry.isClosed(current.getState())) {
+                    getBookingRegistry().forget(booking.getId());
+                    return;
+                }
+
+                if (current != null) {
+                    booking = current;
+                }
+            }
         }
     }
 
     /**
-     * Intended for being overridden and marked as test method.
+     * Checks the result of the unfiltered list and of every state filter of
+     * getBookings against the given bookings, which were created by this test
+     * and are in the given states. All filters are requested at the same time.
+     * Bookings of other tests, which may change in between, are only checked
+     * for having the state of the filter. The bookings are indexed by id and
+     * state up front, so each comparison is linear.
      *
+     * @param own The states of the bookings of this test, by id.
+     * @return a description of every deviation.
      * @throws Exception
      */
-    public void book_start_tryIllegalStates_finish_tryAllStates() throws Exception {
-        Booking booking = bookRandomOption();
+    protected List<String> verifyBookingStateFilters(Map<String, BookingState> own) throws Exception {
+        var idsByState = new EnumMap<BookingState, Set<String>>(BookingState.class);
+        for (BookingState state : BookingState.values()) {
+            idsByState.put(state, new HashSet<>());
+        }
+        own.forEach((id, state) -> idsByState.get(state).add(id));
 
-        Booking started;
+        var states = BookingState.values();
+        var problems = Collections.synchronizedList(new ArrayList<String>());
+        var listed = new HashSet<String>();
 
-        // Only modify to STARTED if the booking did not start in that state.
-        if (booking.getState().equals(BookingState.BOOKED)) {
-            started = tryModifyBookingForSuccess(booking, BookingState.STARTED);
+        try (var all = streamBookings(null, bookingCredentials(), status().is2xxSuccessful())) {
+            while (all.hasNext()) {
+                Booking booking = all.next();
+                BookingState expected = own.get(booking.getId());
 
-            // The following tests must only be run if the booking came with state BOOKED.
-            // If it had come with state STARTED, the failing tests had already run in book_tryIllegalStates_close_tryAllStates().
-            tryModifyBookingForFail(started, BookingState.NEW);
-            tryModifyBookingForFail(started, BookingState.BOOKED);
-            tryModifyBookingForFail(started, BookingState.CANCELLED);
-            tryModifyBookingForFail(started, BookingState.STARTED);
-        } else {
-            started = booking;
-        } // the function bookRandomOption(...) asserts that the returned booking has states of either BOOKED or STARTED.
+                if (expected != null) {
+                    listed.add(booking.getId());
 
-        Booking finished = tryModifyBookingForSuccess(started, BookingState.FINISHED);
+                    if (booking.getState() != expected) {
+                        problems.add("The unfiltered list returned booking " + booking.getId() + " with state " + booking.getState() + " instead of " + expected + ".");
+                    }
+                }
+            }
+        }
 
-        // Subsequent calls to modify booking with the returned booking object should fail.
-        for (BookingState state : BookingState.values()) {
-            // Mark this booking for whatever and try a modfiy call...
-            tryModifyBookingForFail(finished, state);
+        if (listed.size() != own.size()) {
+            problems.add("The unfiltered list is missing " + (own.size() - listed.size()) + " of the " + own.size() + " bookings of this test.");
+        }
+
+        var result = new LoadRunner(states.length, getLoadTimeoutMillis(), new LatencyRecorder()).run(states.length, i -> () -> {
+            var state = states[i];
+            Set<String> expected = idsByState.get(state);
+            Set<String> actual = new HashSet<>();
+
+            try (var filtered = streamBookings(state, bookingCredentials(), status().is2xxSuccessful())) {
+                while (filtered.hasNext()) {
+                    Booking booking = filtered.next();
+
+                    if (own.containsKey(booking.getId())) {
+                        actual.add(booking.getId());
+                    }
+
+                    if (booking.getState() != state) {
+                        problems.add("Filter " + state + " returned booking " + booking.getId() + " with state " + booking.getState() + ".");
+                    }
+                }
+            }
+
+            if (!expected.equals(actual)) {
+                var missing = new HashSet<>(expected);
+                missing.removeAll(actual);
+                var unexpected = new HashSet<>(actual);
+                unexpected.removeAll(expected);
+
+                problems.add("Filter " + state + " is missing " + missing.size() + " and additionally returned " + unexpected.size() + " bookings of this test.");
+            }
+        });
+
+        if (result.getFailures() > 0) {
+            problems.add(result.getFailures() + " state filter requests failed: " + result.getSampleFailures());
         }
+
+        return problems;
     }
 
     /**
      * Intended for being overridden and marked as test method.
+     * <p>
+     * Runs {@link #getAllocationRounds()} rounds of getOptions, booking,
+     * getBookingById, getBookings and cancelling, after a few rounds of warm
+     * up, and accounts the allocated bytes per endpoint and phase. The
+     * averages are compared with the baseline in
+     * {@link #getAllocationBaselineFile()}. The options depend on the data of
+     * the provider, so their allocations are logged but not compared. If
+     * there is no baseline for this environment yet, the averages are written
+     * below {@code target} as a candidate. Run with the system property
+     * {@value #UPDATE_ALLOCATION_BASELINE_PROPERTY} set to true to accept them
+     * as baseline.
      *
      * @throws Exception
      */
-    public void book_start_abort_tryAllStates() throws Exception {
-        Booking booking = bookRandomOption();
+    public void testAllocationRegression() throws Exception {
+        if (!AllocationMeter.isSupported()) {
+            logger.warn("Skipping allocation regression test, thread allocation accounting is not supported.");
+            return;
+        }
 
-        Booking started;
+        var meter = new AllocationMeter();
+        int warmup = 5;
 
-        if (booking.getState().equals(BookingState.BOOKED)) {
-            started = tryModifyBookingForSuccess(booking, BookingState.STARTED);
-        } else {
-            started = booking;
-        } // the function bookRandomOption(...) asserts that the returned booking has states of either BOOKED or STARTED so we don't need to check for other states.
+        try {
+            for (int round = 0; round < warmup + getAllocationRounds(); ++round) {
+                if (round == warmup) {
+                    allocationMeter = meter;
+                }
 
-        Booking aborted = tryModifyBookingForSuccess(started, BookingState.ABORTED);
+                getOptions();
+                Booking booking = bookRandomOption();
+                getBookingById(booking.getId(), bookingCredentials(), status().is2xxSuccessful());
+                getBookings(BookingState.BOOKED, bookingCredentials(), status().is2xxSuccessful());
+                tryCloseBooking(booking);
+            }
+        } finally {
+            allocationMeter = null;
+        }
 
-        // Subsequent calls to modify booking with the returned booking object should fail.
-        for (BookingState state : BookingState.values()) {
-            // Mark this booking for whatever and try a modfiy call...
-            tryModifyBookingForFail(aborted, state);
+        logger.info("Allocations per request phase:\n{}", meter.report());
+
+        // The size of the options responses varies with the provider, so their allocations drift between runs.
+        meter.removeIf(key -> key.contains(Endpoint.OPTIONS));
+
+        var file = getAllocationBaselineFile();
+
+        if (Boolean.getBoolean(UPDATE_ALLOCATION_BASELINE_PROPERTY)) {
+            meter.saveBaseline(file);
+            logger.info("Saved allocation baseline to {}.", file.toAbsolutePath());
+        } else if (!Files.exists(file)) {
+            var candidate = Paths.get("target", file.getFileName().toString());
+            meter.saveBaseline(candidate);
+            logger.warn("There is no allocation baseline {} for this environment. Saved the allocations to {}, run with -D{}=true to accept them.",
+                    file, candidate.toAbsolutePath(), UPDATE_ALLOCATION_BASELINE_PROPERTY);
+        } else {
+            meter.assertWithinBaseline(file, getAllocationTolerance());
         }
     }
 
@@ -235,61 +1907,329 @@ public abstract class AdapterIntegrationTest extends AdapterTestBase {
      * @throws Exception
      */
     public void testGetBookings() throws Exception {
-        List<Booking> bookings = getBookings(null, getBookingCredentials(), status().is2xxSuccessful());
+        // Work on a booking of this test, the other bookings may be changed by tests running in parallel.
+        Booking own = bookRandomOption();
+
+        try {
+            testGetBookings(own);
+        } finally {
+            tryCloseBooking(own);
+        }
+    }
+
+    private void testGetBookings(Booking own) throws Exception {
+        List<Booking> bookings = getBookings(null, bookingCredentials(), status().is2xxSuccessful());
         assertNotNull(bookings);
         // Check that none of the stored bookings has a booking state of NEW.
         assertTrue(bookings.stream().noneMatch(b -> b.getState().equals(BookingState.NEW)));
         // Check that none of the stored bookings has a booking state of UPDATE_REQUESTED.
         assertTrue(bookings.stream().noneMatch(b -> b.getState().equals(BookingState.UPDATEREQUESTED)));
+        Booking listed = bookings.stream().filter(b -> b.getId().equals(own.getId())).findFirst().orElse(null);
+        assertNotNull(listed, "The list of bookings should contain the booking created by this test.");
+
+        // Check for one of the present booking states, whether a state-filtered list contains all of the matching elements and no other ones.
+        // Do this only for one otherwise the tests might take very long.
+        if (containsBookingsWithState(bookings, BookingState.BOOKED)) {
+            testBookingStateFilter(bookings, BookingState.BOOKED);
+        } else if (containsBookingsWithState(bookings, BookingState.CANCELLED)) {
+            testBookingStateFilter(bookings, BookingState.CANCELLED);
+        } else if (containsBookingsWithState(bookings, BookingState.STARTED)) {
+            testBookingStateFilter(bookings, BookingState.STARTED);
+        } else if (containsBookingsWithState(bookings, BookingState.FINISHED)) {
+            testBookingStateFilter(bookings, BookingState.FINISHED);
+        } else if (containsBookingsWithState(bookings, BookingState.ABORTED)) {
+            testBookingStateFilter(bookings, BookingState.ABORTED);
+        }
+
+        // Check if particular bookings can be retrieved using the getBookingById endpoint.
+        // Compare with the listed booking, the create response may contain fewer fields than reads.
+        Booking result = getBookingById(own.getId(), bookingCredentials(), status().is2xxSuccessful());
+        assertEquals(listed, result, "The two bookings should be equal.");
+    }
+
+    /**
+     * Calls {@link super.getOptions()} with the paramters provided in the
+     * implemented abstract methods and caches the result list in
+     * {@link #getOptionsCache()}, from where it is returned upon subsequent
+     * calls of this method with the same parameters. Cached options expire
+     * after the time to live of the cache. If you need fresh options once in
+     * between, call @{link getOptions()}. If you want to clear the cache, call
+     * {@link #clearOptionsCache()}.
+     *
+     * @return
+     * @throws Exception
+     */
+    protected List<Option> getCacheOptions() throws Exception {
+        var fromLatLon = getFromLatLon();
+        var toLatLon = getToLatLon();
+        var startTime = getStartTime();
+        var endTime = getEndTime();
+        var radius = getRadius();
+        var sharing = getSharing();
+        var credentials = optionsCredentials();
+
+        var query = new OptionsQuery(fromLatLon, toLatLon, startTime, endTime, radius, sharing, credentials);
+
+        // The query holds truncated times, so the loader uses the original values.
+        return getOptionsCache().get(query, q -> getOptions(
+                fromLatLon, toLatLon,
+                startTime, endTime,
+                radius, sharing,
+                credentials,
+                status().is2xxSuccessful()));
+    }
+
+    /**
+     * Runs the given number of booking lifecycles against the adapter using
+     * {@code concurrency} worker threads. The lifecycle steps are recorded
+     * with the names of {@link LifecycleStep} in the latency recorder of the
+     * returned result, whole lifecycles under {@link LoadRunner#ITERATION}.
+     * Each lifecycle acts for a tenant of {@link #getTenantPool()}, if any.
+     *
+     * @param lifecycles
+     * @param concurrency
+     * @return
+     * @throws Exception
+     */
+    protected LoadResult runLifecycleLoad(int lifecycles, int concurrency) throws Exception {
+        // Fetch the options once, so the workers don't all race for them.
+        getCacheOptions();
+
+        var recorder = new LatencyRecorder();
+        var runner = new LoadRunner(concurrency, getLoadTimeoutMillis(), recorder);
+
+        Workload[] scenarios = {
+            this::book_tryIllegalStates_close_tryAllStates,
+            this::book_start_tryIllegalStates_finish_tryAllStates,
+            this::book_start_abort_tryAllStates
+        };
+
+        var pool = getTenantPool();
+        var tenantLatencies = new LatencyRecorder();
+
+        stepRecorder = recorder;
+
+        try {
+            return runner.run(lifecycles, i -> asRandomTenant(scenarios[i % scenarios.length], pool, tenantLatencies));
+        } finally {
+            stepRecorder = null;
+            logTenantLatencies(pool, tenantLatencies);
+        }
+    }
+
+    /**
+     * Sends the given number of options requests using {@code concurrency}
+     * worker threads, each as soon as the worker is free. Options are not
+     * taken from the cache. The latency of the requests is recorded under
+     * {@link LoadRunner#ITERATION}.
+     *
+     * @param requests
+     * @param concurrency
+     * @return
+     * @throws Exception
+     */
+    protected LoadResult runOptionsLoad(int requests, int concurrency) throws Exception {
+        var runner = new LoadRunner(concurrency, getLoadTimeoutMillis(), new LatencyRecorder());
+        var pool = getTenantPool();
+        var tenantLatencies = new LatencyRecorder();
+
+        try {
+            return runner.run(requests, asRandomTenant(() -> getOptions(), pool, tenantLatencies));
+        } finally {
+            logTenantLatencies(pool, tenantLatencies);
+        }
+    }
+
+    /**
+     * Sends options requests at the arrival rates of the given stages, at most
+     * {@link #getLoadConcurrency()} of them in flight. Options are not taken
+     * from the cache.
+     *
+     * @param stages
+     * @return
+     * @throws Exception
+     */
+    protected OpenLoopReport runOptionsArrivalRate(List<ArrivalStage> stages) throws Exception {
+        var generator = new OpenLoopLoadGenerator(getLoadConcurrency(), 0.95, getOptionsMaxP99(), getOptionsMaxErrorRatio());
+        var pool = getTenantPool();
+        var tenantLatencies = new LatencyRecorder();
+
+        try {
+            return generator.run(stages, asRandomTenant(this::getOptions, pool, tenantLatencies));
+        } finally {
+            logTenantLatencies(pool, tenantLatencies);
+        }
+    }
+
+    /**
+     * Queries the options of every case of the given sweep, one after another,
+     * and records the results in the sweep. The requests don't specify a
+     * destination, so the results only depend on the swept parameters. The
+     * time windows start at {@link #getStartTime()}.
+     *
+     * @param sweep
+     * @return the given sweep.
+     * @throws Exception
+     */
+    protected OptionsSweep runOptionsSweep(OptionsSweep sweep) throws Exception {
+        Instant startTime = getStartTime() != null ? getStartTime() : Instant.now();
 
-        if (!bookings.isEmpty()) {
-            // Check for one of the present booking states, whether a state-filtered list contains all of the matching elements and no other ones.
-            // Do this only for one otherwise the tests might take very long.
-            if (containsBookingsWithState(bookings, BookingState.BOOKED)) {
-                testBookingStateFilter(bookings, BookingState.BOOKED);
-            } else if (containsBookingsWithState(bookings, BookingState.CANCELLED)) {
-                testBookingStateFilter(bookings, BookingState.CANCELLED);
-            } else if (containsBookingsWithState(bookings, BookingState.STARTED)) {
-                testBookingStateFilter(bookings, BookingState.STARTED);
-            } else if (containsBookingsWithState(bookings, BookingState.FINISHED)) {
-                testBookingStateFilter(bookings, BookingState.FINISHED);
-            } else if (containsBookingsWithState(bookings, BookingState.ABORTED)) {
-                testBookingStateFilter(bookings, BookingState.ABORTED);
+        for (OptionsSweep.Case c : sweep.cases()) {
+            Instant endTime = c.getTimeWindow() != null ? startTime.plus(c.getTimeWindow()) : getEndTime();
+            var builder = buildGetOptionsRequest(c.getPosition(), null, startTime, endTime, c.getRadius(), c.getSharing(), optionsCredentials());
+
+            long start = System.nanoTime();
+            MvcResult result = request(builder, status().is2xxSuccessful());
+            long nanos = System.nanoTime() - start;
+
+            long count = 0;
+
+            try (var options = parseElements(result, Option.class)) {
+                while (options.hasNext()) {
+                    options.next();
+                    ++count;
+                }
             }
 
-            // Check if particular bookings can be retrieved using the getBookingById endpoint.
-            Booking randomBooking = bookings.get(random.nextInt(bookings.size()));
-            Booking result = getBookingById(randomBooking.getId(), getBookingCredentials(), status().is2xxSuccessful());
-            assertEquals(randomBooking, result, "The two bookings should be equal.");
+            sweep.record(c, count, result.getResponse().getContentAsByteArray().length, nanos);
         }
+
+        return sweep;
     }
 
     /**
-     * Calls {@link super.getOptions()} with the paramters provided in the
-     * implemented abstract methods. and chaches the result list in a member
-     * variable, which is returned upon subsequent calls of this method.If you
-     * need fresh options once in between, call @{link getOptions()}.If you want
-     * to clear the cache, call {@link #clearOptionsCache()}.
+     * The source of random values for the calling thread. Returns the
+     * {@link ThreadLocalRandom} of the thread, unless a subclass replaced
+     * {@link #random}.
+     *
+     * @return
+     */
+    @SuppressWarnings("deprecation")
+    protected Random random() {
+        var assigned = random;
+        return assigned != initialRandom ? assigned : ThreadLocalRandom.current();
+    }
+
+    /**
+     * Starts the record of a run of the given load test mode. The suite of
+     * the record is the name of the test class and the mode.
      *
+     * @param mode
      * @return
+     */
+    protected RunRecord startRun(String mode) {
+        return RunRecord.start(getClass().getName() + "#" + mode, getRunEnvironment());
+    }
+
+    /**
+     * Compares the given run with the previous runs of its suite on the same
+     * environment, logs the differences and appends the run to
+     * {@link #getResultsFile()}. Fails on regressions if
+     * {@link #isFailingOnRunRegression()}.
+     *
+     * @param run
+     * @return The comparison, or null if runs are not stored.
      * @throws Exception
      */
-    protected List<Option> getCacheOptions() throws Exception {
-        if (cachedOptions == null) {
-            cachedOptions = getOptions(
-                    getFromLatLon(), getToLatLon(),
-                    getStartTime(), getEndTime(),
-                    getRadius(), getSharing(),
-                    getOptionsCredentials(),
-                    status().is2xxSuccessful());
+    protected RunComparison.Diff storeRun(RunRecord run) throws Exception {
+        var file = getResultsFile();
+
+        if (file == null) {
+            return null;
+        }
+
+        var store = new RunStore(file);
+        var diff = getRunComparison().compare(run, store.history(run.getSuite(), run.getFingerprint()));
+
+        store.append(run);
+        logger.info("Stored run in {}, compared with previous runs:\n{}", file.toAbsolutePath(), diff.report());
+
+        if (diff.hasRegressions() && isFailingOnRunRegression()) {
+            var names = new ArrayList<String>();
+            diff.getRegressions().forEach(m -> names.add(m.getName()));
+            fail("Performance regressed compared with the previous runs: " + String.join(", ", names));
+        }
+
+        return diff;
+    }
+
+    /**
+     * Wraps the given workload so that each execution draws a tenant from the
+     * given pool, acts for it and records its latency under the id of the
+     * tenant. Returns the workload itself if there is no pool.
+     *
+     * @param workload
+     * @param pool
+     * @param tenantLatencies
+     * @return
+     */
+    protected Workload asRandomTenant(Workload workload, TenantPool pool, LatencyRecorder tenantLatencies) {
+        if (pool == null) {
+            return workload;
+        }
+
+        return () -> {
+            Tenant tenant = pool.next(random());
+            long start = System.nanoTime();
+            currentTenant.set(tenant);
+
+            try {
+                workload.execute();
+            } finally {
+                currentTenant.remove();
+                tenantLatencies.recordSince(tenant.getId(), start);
+            }
+        };
+    }
+
+    private void logTenantLatencies(TenantPool pool, LatencyRecorder tenantLatencies) {
+        if (pool != null) {
+            logger.info("Latency per tenant of {}", pool.report(tenantLatencies));
         }
+    }
+
+    /**
+     * Sends the request of a lifecycle step, checks it with the given matcher
+     * and parses the returned booking. The step is emitted as
+     * {@link LifecycleStepEvent}, also if the matcher fails, and measured if
+     * a load run is recording.
+     *
+     * @param step
+     * @param booking The booking before the step, null if it is being created.
+     * @param to The requested state.
+     * @param builder
+     * @param expected
+     * @return
+     * @throws Exception
+     */
+    private Booking performStep(LifecycleStep step, Booking booking, BookingState to, MockHttpServletRequestBuilder builder, ResultMatcher expected) throws Exception {
+        var event = new LifecycleStepEvent();
+        event.begin();
+
+        long start = System.nanoTime();
+        MvcResult result = request(builder);
+
+        event.commit(step.name(), booking != null ? booking.getId() : null, booking != null ? booking.getState() : null, to, result);
+        expected.match(result);
+
+        Booking returned = parse(result, Booking.class);
+        trackBooking(result, returned, bookingCredentials());
+        recordStep(step, start);
+
+        return returned;
+    }
 
-        return cachedOptions;
+    private void recordStep(LifecycleStep step, long startNanos) {
+        var recorder = stepRecorder;
+
+        if (recorder != null) {
+            recorder.recordSince(step.name(), startNanos);
+        }
     }
 
     protected Option getRandomCachedOption() throws Exception {
         List<Option> options = getCacheOptions();
-        return options.get(random.nextInt(options.size()));
+        return options.get(random().nextInt(options.size()));
     }
 
     /**
@@ -303,10 +2243,10 @@ public abstract class AdapterIntegrationTest extends AdapterTestBase {
 
         assertNotNull(option);
 
-        NewBooking newBooking = optionsToNewBooking(option, getCustomer());
+        NewBooking newBooking = optionsToNewBooking(option, customer());
 
         // Send creation request...
-        Booking booking = createBooking(newBooking, getBookingCredentials(), status().is2xxSuccessful());
+        Booking booking = performStep(LifecycleStep.CREATE, null, null, buildCreateBookingRequest(newBooking, bookingCredentials()), status().is2xxSuccessful());
 
         assertNotNull(booking, "The newly created booking should not be null.");
 
@@ -317,14 +2257,133 @@ public abstract class AdapterIntegrationTest extends AdapterTestBase {
         return booking;
     }
 
+    /**
+     * Books a random option and requests the given states on it, one after
+     * another. Every response is checked against the model, and the state
+     * reported by getBookingById must match the one returned by the
+     * modification. If the booking is still open at the end, it is closed.
+     *
+     * @param model
+     * @param sequence
+     * @return null if the adapter behaved as expected, otherwise a description
+     * of the first deviation.
+     * @throws Exception
+     */
+    protected String runTransitionSequence(BookingStateModel model, List<BookingState> sequence) throws Exception {
+        Booking booking = bookRandomOption();
+        BookingState state = booking.getState();
+
+        try {
+            for (int i = 0; i < sequence.size(); ++i) {
+                BookingState requested = sequence.get(i);
+                var transition = model.expect(state, requested);
+                var step = "Step " + (i + 1) + " (" + state + " -> " + requested + ")";
+
+                Booking modified = copy(booking, Booking.class);
+                modified.setState(requested);
+
+                if (requested == BookingState.FINISHED || requested == BookingState.ABORTED) {
+                    // Set something for the "to" value. It can't be null if finishing or aborting.
+                    modified.getLeg().setTo(modified.getLeg().getFrom());
+                }
+
+                MvcResult result = request(buildModifyBookingRequest(modified, bookingCredentials()));
+                int status = result.getResponse().getStatus();
+                boolean accepted = status / 100 == 2;
+                boolean rejected = status / 100 == 4;
+
+                switch (transition.getOutcome()) {
+                    case ACCEPT:
+                        if (!accepted) {
+                            return step + " should have been accepted but returned status " + status + ".";
+                        }
+                        break;
+                    case REJECT:
+                        if (!rejected) {
+                            return step + " should have been rejected with a 4xx status but returned status " + status + ".";
+                        }
+                        break;
+                    default:
+                        if (!accepted && !rejected) {
+                            return step + " returned status " + status + ".";
+                        }
+                }
+
+                if (accepted) {
+                    Booking returned = parse(result, Booking.class);
+                    trackBooking(result, returned, bookingCredentials());
+
+                    if (returned == null || !transition.getResults().contains(returned.getState())) {
+                        return step + " resulted in state " + (returned != null ? returned.getState() : null) + " instead of one of " + transition.getResults() + ".";
+                    }
+
+                    booking = returned;
+                    state = returned.getState();
+                }
+
+                Booking stored = getBookingById(booking.getId(), bookingCredentials());
+
+                if (stored == null || stored.getState() != state) {
+                    return step + ": getBookingById reports state " + (stored != null ? stored.getState() : null) + " instead of " + state + ".";
+                }
+            }
+
+            return null;
+        } finally {
+            if (!model.isTerminal(state)) {
+                try {
+                    tryCloseBooking(booking);
+                } catch (Exception ex) {
+                    logger.warn("Could not close booking {} after transition sequence.", booking.getId(), ex);
+                }
+            }
+        }
+    }
+
     protected boolean containsBookingsWithState(List<Booking> bookings, BookingState filter) {
         return bookings.stream().anyMatch(b -> b.getState().equals(filter));
     }
 
+    /**
+     * Checks that the bookings filtered by the given state all have this state
+     * and equal the bookings of the given, unfiltered list. Tests running in
+     * parallel may create or modify bookings in between. A booking which
+     * differs from the list is therefore fetched again with getBookingById
+     * and only accepted if it was modified since, i.e. differs from the list
+     * as well. A booking missing from the list was created since and must,
+     * when fetched, equal the filtered one, unless it left the state since.
+     *
+     * @param bookings
+     * @param state
+     * @throws Exception
+     */
     protected void testBookingStateFilter(List<Booking> bookings, BookingState state) throws Exception {
-        List<Booking> filteredList = getBookings(state, getBookingCredentials(), status().is2xxSuccessful());
-        assertTrue(bookings.containsAll(filteredList));
+        List<Booking> filteredList = getBookings(state, bookingCredentials(), status().is2xxSuccessful());
         assertTrue(filteredList.stream().allMatch(b -> b.getState().equals(state)));
+
+        // Index the larger list, so the check is linear instead of quadratic.
+        Map<String, Booking> listedById = new HashMap<>();
+        bookings.forEach(b -> listedById.put(b.getId(), b));
+
+        for (Booking filtered : filteredList) {
+            Booking listed = listedById.get(filtered.getId());
+
+            if (listed != null && listed.equals(filtered)) {
+                continue;
+            }
+
+            Booking current = getBookingById(filtered.getId(), bookingCredentials(), status().is2xxSuccessful());
+            assertNotNull(current, "Booking " + filtered.getId() + " of the filtered list should exist.");
+
+            if (listed != null) {
+                assertTrue(!listed.equals(current),
+                        "Booking " + filtered.getId() + " of the filtered list differs from the unfiltered list, but was not modified in between.");
+            } else {
+                // Created after the unfiltered list was requested.
+                assertTrue(current.equals(filtered) || current.getState() != state,
+                        "Booking " + filtered.getId() + " of the filtered list differs from the one returned by getBookingById.");
+            }
+        }
     }
 
     /**
@@ -335,52 +2394,50 @@ public abstract class AdapterIntegrationTest extends AdapterTestBase {
      * If the state is RUNNING, a ABORTED request ist sent.
      * <p>
      * No assertions are tested in this code. It is intended to be used as clean
-     * up for test functions.
-     * <p>
-     * Be aware though, that the provided object is being mutated in this
-     * function. The state is changed due to the nature of the interface.
+     * up for test functions. The request is sent with a copy of the booking,
+     * the provided object is not changed.
      *
      * @param booking
      * @throws java.lang.Exception
      */
     protected void tryCloseBooking(Booking booking) throws Exception {
+        Booking closing = copy(booking, Booking.class);
+
         switch (booking.getState()) {
             case BOOKED:
-                booking.setState(BookingState.CANCELLED);
+                closing.setState(BookingState.CANCELLED);
                 break;
             case STARTED:
-                booking.setState(BookingState.ABORTED);
+                closing.setState(BookingState.ABORTED);
+                // Set something for the "to" value. It can't be null if aborting.
+                closing.getLeg().setTo(closing.getLeg().getFrom());
         }
 
-        modifyBooking(booking, getBookingCredentials());
+        modifyBooking(closing, bookingCredentials());
     }
 
     /**
-     * Sets the given state in the provided booking and then tries to send a
-     * modify request, which is expected to fail.
+     * Sets the given state in a copy of the provided booking and then tries to
+     * send a modify request, which is expected to fail.
      *
      * @param booking
      * @param state
      * @throws Exception
      */
     protected void tryModifyBookingForFail(Booking booking, BookingState state) throws Exception {
-        BookingState previousState = booking.getState();
-
-        // Mark this booking with the given state...
-        booking.setState(state);
+        // Mark a copy of this booking with the given state, the booking itself stays untouched...
+        Booking modified = copy(booking, Booking.class);
+        modified.setState(state);
 
         // Send modify request. This should fail.
-        Booking result = modifyBooking(booking, getBookingCredentials(), status().is4xxClientError());
-        assertEqualsIfNotNull("The state of the returned booking should not have changed after the erroneous call.", previousState, result.getState());
-
-        // Undo changes...
-        booking.setState(previousState);
+        Booking result = performStep(LifecycleStep.REJECT, booking, state, buildModifyBookingRequest(modified, bookingCredentials()), status().is4xxClientError());
+        assertEqualsIfNotNull("The state of the returned booking should not have changed after the erroneous call.", booking.getState(), result.getState());
     }
 
     /**
-     * Sets the given state in the provided booking and then tries to send a
-     * modify request, which is expected to succeed. Also does some after
-     * checking.
+     * Sets the given state in a copy of the provided booking and then tries to
+     * send a modify request, which is expected to succeed. Also does some
+     * after checking.
      *
      * @param booking
      * @param state
@@ -389,18 +2446,17 @@ public abstract class AdapterIntegrationTest extends AdapterTestBase {
      */
     protected @NotNull
     Booking tryModifyBookingForSuccess(Booking booking, BookingState state) throws Exception {
-        BookingState previousState = booking.getState();
-
-        // Mark this booking for...
-        booking.setState(state);
+        // Mark a copy of this booking for..., the booking itself stays untouched.
+        Booking modified = copy(booking, Booking.class);
+        modified.setState(state);
 
         if (state == BookingState.FINISHED || state == BookingState.ABORTED) {
             // Set something for the "to" value. It can't be null if finishing or aborting.
-            booking.getLeg().setTo(booking.getLeg().getFrom());
+            modified.getLeg().setTo(modified.getLeg().getFrom());
         }
 
         // Send modify request...
-        Booking result = modifyBooking(booking, getBookingCredentials(), status().is2xxSuccessful());
+        Booking result = performStep(LifecycleStep.of(state), booking, state, buildModifyBookingRequest(modified, bookingCredentials()), status().is2xxSuccessful());
         assertNotNull(result, "The returned booking should not be null.");
 
         if (state == BookingState.FINISHED || state == BookingState.ABORTED) {
@@ -411,9 +2467,6 @@ public abstract class AdapterIntegrationTest extends AdapterTestBase {
             assertEquals(state, result.getState(), "The returned booking should have a BookingState of \"" + state + "\".");
         }
 
-        // Undo changes...
-        booking.setState(previousState);
-
         // Return result...
         return result;
     }
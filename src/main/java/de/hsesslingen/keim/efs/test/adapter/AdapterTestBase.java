@@ -25,19 +25,46 @@ package de.hsesslingen.keim.efs.test.adapter;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.MappingIterator;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import de.hsesslingen.keim.efs.middleware.model.Booking;
 import de.hsesslingen.keim.efs.middleware.model.BookingState;
 import de.hsesslingen.keim.efs.middleware.model.Customer;
 import de.hsesslingen.keim.efs.middleware.model.NewBooking;
 import de.hsesslingen.keim.efs.middleware.model.Leg;
 import de.hsesslingen.keim.efs.middleware.model.Option;
+import de.hsesslingen.keim.efs.test.adapter.codec.Codec;
+import de.hsesslingen.keim.efs.test.adapter.codec.JacksonCodec;
+import de.hsesslingen.keim.efs.test.adapter.context.AdapterContext;
+import de.hsesslingen.keim.efs.test.adapter.jfr.HarnessRequestEvent;
+import de.hsesslingen.keim.efs.test.adapter.jfr.JfrRecordingExtension;
+import de.hsesslingen.keim.efs.test.adapter.perf.AllocationMeter;
+import de.hsesslingen.keim.efs.test.adapter.perf.Endpoint;
+import de.hsesslingen.keim.efs.test.adapter.perf.HarnessMetrics;
+import de.hsesslingen.keim.efs.test.adapter.perf.LatencySlo;
+import de.hsesslingen.keim.efs.test.adapter.transport.ExchangeRecorder;
+import de.hsesslingen.keim.efs.test.adapter.transport.HttpClientTransport;
+import de.hsesslingen.keim.efs.test.adapter.transport.MockMvcTransport;
+import de.hsesslingen.keim.efs.test.adapter.transport.RecordingTransport;
+import de.hsesslingen.keim.efs.test.adapter.transport.ReplayTransport;
+import de.hsesslingen.keim.efs.test.adapter.transport.RequestTransport;
 import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.time.Instant;
 import java.time.ZonedDateTime;
 import static java.time.temporal.ChronoUnit.MILLIS;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.extension.ExtendWith;
 import org.slf4j.Logger;
 import static org.slf4j.LoggerFactory.getLogger;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -52,13 +79,41 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 /**
+ * Every request is emitted as {@link HarnessRequestEvent} to the Java Flight
+ * Recorder. If the system property {@value JfrRecordingExtension#DIRECTORY_PROPERTY}
+ * is set, a recording is made per test class and dumped into that directory.
  *
  * @author ben
  */
+@ExtendWith(JfrRecordingExtension.class)
 public abstract class AdapterTestBase {
 
     private static final Logger logger = getLogger(AdapterTestBase.class);
-    private static final String CREDENTIALS_HEADER_KEY = "x-credentials";
+    public static final String CREDENTIALS_HEADER_KEY = "x-credentials";
+
+    /**
+     * System property which, if set, makes the harness send its requests over
+     * HTTP to the adapter at the given URI instead of using MockMvc.
+     */
+    public static final String ADAPTER_BASE_URI_PROPERTY = "efs.test.adapter.base-uri";
+
+    /**
+     * System property which, if set, makes the harness record all exchanges
+     * into the given file.
+     */
+    public static final String RECORD_FILE_PROPERTY = "efs.test.record.file";
+
+    /**
+     * System property which, if set, makes the harness answer all requests
+     * from the given recording, without involving the adapter.
+     */
+    public static final String REPLAY_FILE_PROPERTY = "efs.test.replay.file";
+
+    /**
+     * System property which selects the codec for request and response
+     * bodies, one of "json", "smile" or "cbor". Defaults to "json".
+     */
+    public static final String CODEC_PROPERTY = "efs.test.codec";
 
     @Autowired
     protected ObjectMapper mapper;
@@ -68,42 +123,495 @@ public abstract class AdapterTestBase {
     @Autowired
     protected MockMvc mockMvc;
 
+    private final ConcurrentMap<JavaType, ObjectReader> readers = new ConcurrentHashMap<>();
+    private volatile ObjectMapper readersMapper;
+
+    private volatile MockMvcTransport mockMvcTransport;
+
+    private volatile Codec codec;
+    private volatile ObjectMapper codecMapper;
+
+    // JUnit creates an instance per test method by default, so this tracks the bookings of one test.
+    private final BookingRegistry bookingRegistry = new BookingRegistry();
+
+    /**
+     * The component classes of a lightweight test context, e.g. the booking
+     * controller of the adapter and the beans it needs. If this returns
+     * classes and {@link #mockMvc} was not autowired, {@link #mockMvc} and
+     * {@link #mapper} are taken from an {@link AdapterContext} with these
+     * classes instead of a full Spring Boot context. The context is shared by
+     * all test classes returning the same classes. Returns null by default.
+     *
+     * @return
+     */
+    protected Class<?>[] getContextClasses() {
+        return null;
+    }
+
+    /**
+     * Sets up {@link #mockMvc} and {@link #mapper} from the shared
+     * {@link AdapterContext} if they were not autowired. Runs before each
+     * test, subclasses which override it must call the super implementation.
+     */
+    @BeforeEach
+    public void setUpAdapterContext() {
+        if (mockMvc != null) {
+            return;
+        }
+
+        var contextClasses = getContextClasses();
+
+        if (contextClasses != null && contextClasses.length > 0) {
+            var adapterContext = AdapterContext.obtain(contextClasses);
+            mockMvc = adapterContext.getMockMvc();
+
+            if (mapper == null) {
+                mapper = adapterContext.getMapper();
+            }
+        }
+    }
+
+    /**
+     * The bookings created by this instance which are still open. Bookings
+     * created or modified through the methods of this class are tracked
+     * automatically, call {@link #trackBooking(MvcResult, Booking, String)}
+     * when sending such requests otherwise. Override and return null to turn
+     * off tracking.
+     *
+     * @return
+     */
+    protected BookingRegistry getBookingRegistry() {
+        return bookingRegistry;
+    }
+
+    /**
+     * Tracks the booking returned by a create or modify request, if the
+     * request succeeded.
+     *
+     * @param result
+     * @param booking
+     * @param credentials
+     */
+    protected void trackBooking(MvcResult result, Booking booking, String credentials) {
+        var registry = getBookingRegistry();
+
+        if (registry != null && result.getResponse().getStatus() / 100 == 2) {
+            registry.track(booking, credentials);
+        }
+    }
+
     protected static <T> void assertEqualsIfNotNull(String text, T expected, T actual) {
         if (actual != null) {
             assertEquals(expected, actual, text);
         }
     }
 
+    /**
+     * The Micrometer instrumentation of the request pipeline. Returns the
+     * shared instance by default, override to use a different registry or
+     * return null to disable the instrumentation.
+     *
+     * @return
+     */
+    protected HarnessMetrics getHarnessMetrics() {
+        return HarnessMetrics.shared();
+    }
+
+    /**
+     * The meter which accounts the allocations of serialization, dispatch and
+     * deserialization. Returns the shared instance by default, override to
+     * use a different one or return null to disable the accounting.
+     *
+     * @return
+     */
+    protected AllocationMeter getAllocationMeter() {
+        return AllocationMeter.shared();
+    }
+
+    /**
+     * The codec used for request bodies and, if the adapter answers in its
+     * media type, for response bodies. The default implementation reads the
+     * system property {@value #CODEC_PROPERTY} and derives the codec from
+     * {@link #mapper}, so it uses the same configuration and modules.
+     *
+     * @return
+     */
+    protected Codec getCodec() {
+        var current = codec;
+
+        if (current == null || codecMapper != mapper) {
+            current = JacksonCodec.forName(System.getProperty(CODEC_PROPERTY, JacksonCodec.JSON), mapper);
+            codec = current;
+            codecMapper = mapper;
+        }
+
+        return current;
+    }
+
     protected String stringify(Object o) throws JsonProcessingException {
-        return mapper.writeValueAsString(o);
+        long startBytes = allocatedBytes();
+        long start = System.nanoTime();
+        String json = mapper.writeValueAsString(o);
+        long nanos = System.nanoTime() - start;
+        long allocated = allocatedBytes() - startBytes;
+
+        recordSerialization(o, "", nanos, allocated);
+
+        return json;
+    }
+
+    /**
+     * Encodes the given object with {@link #getCodec()}. Used for request
+     * bodies.
+     *
+     * @param o
+     * @return
+     * @throws JsonProcessingException
+     */
+    protected byte[] encode(Object o) throws JsonProcessingException {
+        var bodyCodec = getCodec();
+        long startBytes = allocatedBytes();
+        long start = System.nanoTime();
+        byte[] body = bodyCodec.encode(o);
+        long nanos = System.nanoTime() - start;
+        long allocated = allocatedBytes() - startBytes;
+
+        var suffix = JacksonCodec.JSON.equals(bodyCodec.getName()) ? "" : " " + bodyCodec.getName();
+        recordSerialization(o, suffix, nanos, allocated);
+
+        return body;
+    }
+
+    /**
+     * The bytes allocated by the current thread, only read if
+     * {@link #getAllocationMeter()} returns a meter.
+     */
+    private long allocatedBytes() {
+        return getAllocationMeter() != null ? AllocationMeter.currentThreadAllocatedBytes() : 0;
+    }
+
+    private void recordSerialization(Object o, String suffix, long nanos, long allocated) {
+        if (o == null) {
+            return;
+        }
+
+        var metrics = getHarnessMetrics();
+        if (metrics != null) {
+            metrics.recordSerialization(o.getClass(), nanos);
+        }
+
+        var allocations = getAllocationMeter();
+        if (allocations != null) {
+            allocations.record("serialize " + o.getClass().getSimpleName() + suffix, allocated);
+        }
+    }
+
+    /**
+     * Returns an {@link ObjectReader} for the given type. Readers are cached
+     * per type, so the lookup of the deserializer is only done once.
+     *
+     * @param type
+     * @return
+     */
+    protected ObjectReader readerFor(JavaType type) {
+        if (readersMapper != mapper) {
+            // The mapper was replaced, so the cached readers are outdated.
+            readers.clear();
+            readersMapper = mapper;
+        }
+
+        return readers.computeIfAbsent(type, mapper::readerFor);
+    }
+
+    protected ObjectReader readerFor(Class<?> clazz) {
+        return readerFor(mapper.constructType(clazz));
     }
 
     protected <T> T parse(MvcResult mvcResult, Class<T> clazz) throws IOException {
-        String response = mvcResult.getResponse().getContentAsString();
+        return parse(mvcResult, mapper.constructType(clazz));
+    }
+
+    protected <T> T parse(MvcResult mvcResult, TypeReference<T> typeRef) throws IOException {
+        return parse(mvcResult, mapper.getTypeFactory().constructType(typeRef));
+    }
+
+    /**
+     * Parses the response body of the given result. The body is read directly
+     * from the bytes of the response, without decoding it into a String first.
+     *
+     * @param <T>
+     * @param mvcResult
+     * @param type
+     * @return
+     * @throws IOException
+     */
+    protected <T> T parse(MvcResult mvcResult, JavaType type) throws IOException {
+        long startBytes = allocatedBytes();
+        long start = System.nanoTime();
+        byte[] content = mvcResult.getResponse().getContentAsByteArray();
 
         try {
-            return mapper.readValue(response, clazz);
+            T value = readerFor(mvcResult, type).readValue(content);
+            long nanos = System.nanoTime() - start;
+            long allocated = allocatedBytes() - startBytes;
+
+            var metrics = getHarnessMetrics();
+            if (metrics != null) {
+                metrics.recordDeserialization(mvcResult, type.getRawClass(), nanos);
+            }
+
+            var allocations = getAllocationMeter();
+            if (allocations != null) {
+                allocations.record("deserialize " + Endpoint.of(mvcResult.getRequest()) + " " + type.getRawClass().getSimpleName(), allocated);
+            }
+
+            return value;
         } catch (JsonProcessingException ex) {
             logger.error("{}", ex);
             throw ex;
         }
     }
 
-    protected <T> T parse(MvcResult mvcResult, TypeReference<T> typeRef) throws IOException {
-        return mapper.readValue(mvcResult.getResponse().getContentAsString(), typeRef);
+    /**
+     * Parses a response body that contains a JSON array one element at a time.
+     * Elements are only deserialized when the iterator is advanced, so the
+     * complete list is never built in memory.
+     *
+     * @param <T>
+     * @param mvcResult
+     * @param elementType
+     * @return
+     * @throws IOException
+     */
+    protected <T> MappingIterator<T> parseElements(MvcResult mvcResult, Class<T> elementType) throws IOException {
+        var reader = readerFor(mvcResult, mapper.constructType(elementType));
+        return reader.readValues(mvcResult.getResponse().getContentAsByteArray());
+    }
+
+    /**
+     * Returns the reader of {@link #getCodec()} if the response is encoded in
+     * its media type. Otherwise the response is read as JSON, which is what
+     * adapters without support for binary formats fall back to.
+     */
+    protected ObjectReader readerFor(MvcResult mvcResult, JavaType type) {
+        var responseCodec = getCodec();
+
+        if (!JacksonCodec.JSON.equals(responseCodec.getName()) && responseCodec.matches(mvcResult.getResponse().getContentType())) {
+            return responseCodec.readerFor(type);
+        }
+
+        return readerFor(type);
+    }
+
+    /**
+     * The URI of an adapter which runs as separate server. If this returns a
+     * value, all requests are sent over HTTP to this adapter instead of being
+     * dispatched to {@link #mockMvc}. The default implementation reads the
+     * system property {@value #ADAPTER_BASE_URI_PROPERTY}.
+     *
+     * @return
+     */
+    protected URI getAdapterBaseUri() {
+        var value = System.getProperty(ADAPTER_BASE_URI_PROPERTY);
+        return value != null && !value.isBlank() ? URI.create(value) : null;
+    }
+
+    /**
+     * The recording to replay instead of sending requests to the adapter. The
+     * default implementation reads the system property
+     * {@value #REPLAY_FILE_PROPERTY}.
+     *
+     * @return
+     */
+    protected Path getReplayFile() {
+        var value = System.getProperty(REPLAY_FILE_PROPERTY);
+        return value != null && !value.isBlank() ? Paths.get(value) : null;
+    }
+
+    /**
+     * The file to record all exchanges in. The default implementation reads
+     * the system property {@value #RECORD_FILE_PROPERTY}.
+     *
+     * @return
+     */
+    protected Path getRecordFile() {
+        var value = System.getProperty(RECORD_FILE_PROPERTY);
+        return value != null && !value.isBlank() ? Paths.get(value) : null;
+    }
+
+    /**
+     * Returns the transport used by {@link #request(MockHttpServletRequestBuilder, ResultMatcher...)}.
+     * This is a shared {@link ReplayTransport} if {@link #getReplayFile()}
+     * returns a value. Otherwise, it is a shared {@link HttpClientTransport} if
+     * {@link #getAdapterBaseUri()} returns a value and a
+     * {@link MockMvcTransport} if not. If {@link #getRecordFile()} returns a
+     * value, the latter two are wrapped in a {@link RecordingTransport}.
+     *
+     * @return
+     */
+    protected RequestTransport getTransport() {
+        var replayFile = getReplayFile();
+
+        if (replayFile != null) {
+            return ReplayTransport.forFile(replayFile);
+        }
+
+        RequestTransport transport = getAdapterTransport();
+        var recordFile = getRecordFile();
+
+        if (recordFile != null) {
+            transport = new RecordingTransport(transport, ExchangeRecorder.shared(recordFile));
+        }
+
+        return transport;
+    }
+
+    /**
+     * Returns the transport for requests which are not part of the test, e.g.
+     * closing bookings it left open. It sends directly to the adapter, so
+     * these requests are neither recorded in the record file nor measured by
+     * the harness. Returns null when replaying, since there is no adapter
+     * then.
+     *
+     * @return
+     */
+    protected RequestTransport getTeardownTransport() {
+        return getReplayFile() != null ? null : getAdapterTransport();
+    }
+
+    private RequestTransport getAdapterTransport() {
+        var baseUri = getAdapterBaseUri();
+
+        if (baseUri != null) {
+            return HttpClientTransport.forBaseUri(baseUri);
+        }
+
+        var transport = mockMvcTransport;
+
+        if (transport == null || transport.getMockMvc() != mockMvc) {
+            transport = new MockMvcTransport(mockMvc);
+            mockMvcTransport = transport;
+        }
+
+        return transport;
+    }
+
+    /**
+     * If this returns a value, the latency of every request is recorded in it.
+     * Override and return a static instance with declared budgets, then call
+     * {@link LatencySlo#assertMet()} after all tests, e.g. in an
+     * {@code @AfterAll} method. Returns null by default.
+     *
+     * @return
+     */
+    protected LatencySlo getLatencySlo() {
+        return null;
     }
 
     protected MvcResult request(MockHttpServletRequestBuilder builder, ResultMatcher... matchers) throws Exception {
         try {
-            return mockMvc.perform(builder)
-                    .andExpect(matchAll(matchers))
-                    .andReturn();
+            var responseCodec = getCodec();
+            if (!JacksonCodec.JSON.equals(responseCodec.getName())) {
+                // Adapters without support for the codec still answer in JSON.
+                builder.header("Accept", responseCodec.getMediaType() + ", application/json;q=0.5");
+            }
+
+            var event = new HarnessRequestEvent();
+            event.begin();
+
+            long startBytes = allocatedBytes();
+            long start = System.nanoTime();
+            MvcResult result = getTransport().perform(builder);
+            long latency = System.nanoTime() - start;
+            long allocated = allocatedBytes() - startBytes;
+
+            event.commit(result, false);
+
+            var allocations = getAllocationMeter();
+            if (allocations != null) {
+                allocations.record("dispatch " + Endpoint.of(result.getRequest()), allocated);
+            }
+
+            return complete(result, latency, matchers);
         } catch (Exception ex) {
             logger.error("{}", ex);
             throw ex;
         }
     }
 
+    /**
+     * Same as {@link #request(MockHttpServletRequestBuilder, ResultMatcher...)}
+     * but does not wait for the response. The request is sent with
+     * {@link RequestTransport#performAsync}, so with the HTTP transport, or
+     * with MockMvc and an async controller, one thread can keep many requests
+     * in flight. Latency is measured and matchers are applied when the
+     * response arrives, on the thread completing the future. Allocations are
+     * not accounted, as they are spread over several threads.
+     *
+     * @param builder
+     * @param matchers
+     * @return
+     */
+    protected CompletableFuture<MvcResult> requestAsync(MockHttpServletRequestBuilder builder, ResultMatcher... matchers) {
+        var responseCodec = getCodec();
+        if (!JacksonCodec.JSON.equals(responseCodec.getName())) {
+            builder.header("Accept", responseCodec.getMediaType() + ", application/json;q=0.5");
+        }
+
+        var event = new HarnessRequestEvent();
+        event.begin();
+        long start = System.nanoTime();
+
+        return getTransport().performAsync(builder).thenApply(result -> {
+            try {
+                event.commit(result, true);
+                return complete(result, System.nanoTime() - start, matchers);
+            } catch (Exception ex) {
+                logger.error("{}", ex);
+                throw new CompletionException(ex);
+            }
+        });
+    }
+
+    protected <T> CompletableFuture<T> requestAsync(MockHttpServletRequestBuilder builder, Class<T> expectedReturnType, ResultMatcher... matchers) {
+        return requestAsync(builder, mapper.constructType(expectedReturnType), matchers);
+    }
+
+    protected <T> CompletableFuture<T> requestAsync(MockHttpServletRequestBuilder builder, TypeReference<T> expectedReturnType, ResultMatcher... matchers) {
+        return requestAsync(builder, mapper.getTypeFactory().constructType(expectedReturnType), matchers);
+    }
+
+    private <T> CompletableFuture<T> requestAsync(MockHttpServletRequestBuilder builder, JavaType expectedReturnType, ResultMatcher... matchers) {
+        return requestAsync(builder, matchers).thenApply(result -> {
+            try {
+                return parse(result, expectedReturnType);
+            } catch (IOException ex) {
+                throw new CompletionException(ex);
+            }
+        });
+    }
+
+    /**
+     * Records the latency of the given result and applies the matchers to it.
+     */
+    private MvcResult complete(MvcResult result, long latency, ResultMatcher... matchers) throws Exception {
+        // Make the latency available to result matchers.
+        result.getRequest().setAttribute(LatencySlo.LATENCY_ATTRIBUTE, latency);
+
+        var metrics = getHarnessMetrics();
+        if (metrics != null) {
+            metrics.recordDispatch(result, latency);
+        }
+
+        var slo = getLatencySlo();
+        if (slo != null) {
+            slo.record(result);
+        }
+
+        matchAll(matchers).match(result);
+        return result;
+    }
+
     protected <T> T request(MockHttpServletRequestBuilder builder, Class<T> expectedReturnType, ResultMatcher... matchers) throws Exception {
         MvcResult result = request(builder, matchers);
         return parse(result, expectedReturnType);
@@ -122,6 +630,20 @@ public abstract class AdapterTestBase {
         return request(builder, expected, status().is2xxSuccessful());
     }
 
+    /**
+     * Creates a deep copy of the given value by serializing and deserializing
+     * it with {@link #mapper}.
+     *
+     * @param <T>
+     * @param value
+     * @param type
+     * @return
+     * @throws IOException
+     */
+    protected <T> T copy(T value, Class<T> type) throws IOException {
+        return mapper.readValue(mapper.writeValueAsBytes(value), type);
+    }
+
     /**
      * Creates a NewBooking object from the given options. The returned object
      * is valid and should be ok to submit to the createBooking function.
@@ -167,12 +689,12 @@ public abstract class AdapterTestBase {
         }
     }
 
-    protected List<Option> getOptions(
+    protected MockHttpServletRequestBuilder buildGetOptionsRequest(
             String fromLatLon, String toLatLon,
             Instant startTime, Instant endTime,
             Integer radius, Boolean sharing,
-            String credentials, ResultMatcher... matchers
-    ) throws Exception {
+            String credentials
+    ) {
         var sb = new StringBuilder("/api/bookings/options?");
 
         sb.append("from=").append(fromLatLon);
@@ -201,43 +723,178 @@ public abstract class AdapterTestBase {
 
         addCredentialsToRequestBuilder(builder, credentials);
 
+        return builder;
+    }
+
+    protected List<Option> getOptions(
+            String fromLatLon, String toLatLon,
+            Instant startTime, Instant endTime,
+            Integer radius, Boolean sharing,
+            String credentials, ResultMatcher... matchers
+    ) throws Exception {
+        var builder = buildGetOptionsRequest(fromLatLon, toLatLon, startTime, endTime, radius, sharing, credentials);
+
         List<Option> options = request(builder, new TypeReference<List<Option>>() {
         }, matchers);
 
         return options;
     }
 
+    /**
+     * Same as {@link #getOptions(String, String, Instant, Instant, Integer, Boolean, String, ResultMatcher...)}
+     * but does not wait for the response.
+     *
+     * @param fromLatLon
+     * @param toLatLon
+     * @param startTime
+     * @param endTime
+     * @param radius
+     * @param sharing
+     * @param credentials
+     * @param matchers
+     * @return
+     */
+    protected CompletableFuture<List<Option>> getOptionsAsync(
+            String fromLatLon, String toLatLon,
+            Instant startTime, Instant endTime,
+            Integer radius, Boolean sharing,
+            String credentials, ResultMatcher... matchers
+    ) {
+        var builder = buildGetOptionsRequest(fromLatLon, toLatLon, startTime, endTime, radius, sharing, credentials);
+
+        return requestAsync(builder, new TypeReference<List<Option>>() {
+        }, matchers);
+    }
+
+    /**
+     * Same as {@link #getOptions(String, String, Instant, Instant, Integer, Boolean, String, ResultMatcher...)}
+     * but returns an iterator, which deserializes the options one at a time.
+     * Close the iterator when done.
+     *
+     * @param fromLatLon
+     * @param toLatLon
+     * @param startTime
+     * @param endTime
+     * @param radius
+     * @param sharing
+     * @param credentials
+     * @param matchers
+     * @return
+     * @throws Exception
+     */
+    protected MappingIterator<Option> streamOptions(
+            String fromLatLon, String toLatLon,
+            Instant startTime, Instant endTime,
+            Integer radius, Boolean sharing,
+            String credentials, ResultMatcher... matchers
+    ) throws Exception {
+        var builder = buildGetOptionsRequest(fromLatLon, toLatLon, startTime, endTime, radius, sharing, credentials);
+        return parseElements(request(builder, matchers), Option.class);
+    }
+
     protected Booking createBooking(Option option, Customer customer, String credentials, ResultMatcher... matchers) throws Exception {
         return createBooking(optionsToNewBooking(option, customer), credentials, matchers);
     }
 
     protected Booking createBooking(NewBooking newBooking, String credentials, ResultMatcher... matchers) throws Exception {
-        String json = stringify(newBooking);
+        // By sending "newBooking" to the API, we receive a Booking object.
+        MvcResult result = request(buildCreateBookingRequest(newBooking, credentials), matchers);
+        Booking booking = parse(result, Booking.class);
+        trackBooking(result, booking, credentials);
+
+        return booking;
+    }
+
+    /**
+     * Same as {@link #createBooking(NewBooking, String, ResultMatcher...)} but
+     * does not wait for the response. The request body is encoded on the
+     * calling thread.
+     *
+     * @param newBooking
+     * @param credentials
+     * @param matchers
+     * @return
+     */
+    protected CompletableFuture<Booking> createBookingAsync(NewBooking newBooking, String credentials, ResultMatcher... matchers) {
+        try {
+            return requestAndTrackAsync(buildCreateBookingRequest(newBooking, credentials), credentials, matchers);
+        } catch (JsonProcessingException ex) {
+            return CompletableFuture.failedFuture(ex);
+        }
+    }
 
+    protected MockHttpServletRequestBuilder buildCreateBookingRequest(NewBooking newBooking, String credentials) throws JsonProcessingException {
         MockHttpServletRequestBuilder builder = post("/api/bookings")
-                .content(json)
-                .header("Content-Type", "application/json");
+                .content(encode(newBooking))
+                .header("Content-Type", getCodec().getMediaType());
 
         addCredentialsToRequestBuilder(builder, credentials);
 
-        // By sending "newBooking" to the API, we receive a Booking object.
-        Booking booking = request(builder, Booking.class, matchers);
+        return builder;
+    }
 
-        return booking;
+    protected MockHttpServletRequestBuilder buildModifyBookingRequest(Booking booking, String credentials) throws JsonProcessingException {
+        return buildModifyBookingRequest(booking, encode(booking), credentials);
     }
 
-    protected Booking modifyBooking(Booking booking, String credentials, ResultMatcher... matchers) throws Exception {
+    /**
+     * Same as {@link #buildModifyBookingRequest(Booking, String)} but with the
+     * given body, which must be the booking encoded with {@link #getCodec()}.
+     *
+     * @param booking
+     * @param body
+     * @param credentials
+     * @return
+     */
+    protected MockHttpServletRequestBuilder buildModifyBookingRequest(Booking booking, byte[] body, String credentials) {
         MockHttpServletRequestBuilder builder = put("/api/bookings/" + booking.getId())
-                .content(stringify(booking))
-                .header("Content-Type", "application/json");
+                .content(body)
+                .header("Content-Type", getCodec().getMediaType());
 
         addCredentialsToRequestBuilder(builder, credentials);
 
-        // By sending "newBooking" to the API, we receive a Booking object.
-        return request(builder, Booking.class, matchers);
+        return builder;
     }
 
-    protected List<Booking> getBookings(BookingState byState, String credentials, ResultMatcher... matchers) throws Exception {
+    protected Booking modifyBooking(Booking booking, String credentials, ResultMatcher... matchers) throws Exception {
+        MvcResult result = request(buildModifyBookingRequest(booking, credentials), matchers);
+        Booking modified = parse(result, Booking.class);
+        trackBooking(result, modified, credentials);
+
+        return modified;
+    }
+
+    /**
+     * Same as {@link #modifyBooking(Booking, String, ResultMatcher...)} but
+     * does not wait for the response. The request body is encoded on the
+     * calling thread, so the booking may be changed once this returns.
+     *
+     * @param booking
+     * @param credentials
+     * @param matchers
+     * @return
+     */
+    protected CompletableFuture<Booking> modifyBookingAsync(Booking booking, String credentials, ResultMatcher... matchers) {
+        try {
+            return requestAndTrackAsync(buildModifyBookingRequest(booking, credentials), credentials, matchers);
+        } catch (JsonProcessingException ex) {
+            return CompletableFuture.failedFuture(ex);
+        }
+    }
+
+    private CompletableFuture<Booking> requestAndTrackAsync(MockHttpServletRequestBuilder builder, String credentials, ResultMatcher... matchers) {
+        return requestAsync(builder, matchers).thenApply(result -> {
+            try {
+                Booking booking = parse(result, Booking.class);
+                trackBooking(result, booking, credentials);
+                return booking;
+            } catch (IOException ex) {
+                throw new CompletionException(ex);
+            }
+        });
+    }
+
+    protected MockHttpServletRequestBuilder buildGetBookingsRequest(BookingState byState, String credentials) {
         String byStateParam = byState != null ? "?state=" + byState : "";
 
         MockHttpServletRequestBuilder builder = get("/api/bookings" + byStateParam)
@@ -245,19 +902,68 @@ public abstract class AdapterTestBase {
 
         addCredentialsToRequestBuilder(builder, credentials);
 
-        // By sending "newBooking" to the API, we receive a Booking object.
-        return request(builder, new TypeReference<List<Booking>>() {
+        return builder;
+    }
+
+    protected List<Booking> getBookings(BookingState byState, String credentials, ResultMatcher... matchers) throws Exception {
+        return request(buildGetBookingsRequest(byState, credentials), new TypeReference<List<Booking>>() {
         }, matchers);
     }
 
-    protected Booking getBookingById(String bookingId, String credentials, ResultMatcher... matchers) throws Exception {
+    /**
+     * Same as {@link #getBookings(BookingState, String, ResultMatcher...)} but
+     * does not wait for the response.
+     *
+     * @param byState
+     * @param credentials
+     * @param matchers
+     * @return
+     */
+    protected CompletableFuture<List<Booking>> getBookingsAsync(BookingState byState, String credentials, ResultMatcher... matchers) {
+        return requestAsync(buildGetBookingsRequest(byState, credentials), new TypeReference<List<Booking>>() {
+        }, matchers);
+    }
+
+    /**
+     * Same as {@link #getBookings(BookingState, String, ResultMatcher...)} but
+     * returns an iterator, which deserializes the bookings one at a time.
+     * Close the iterator when done.
+     *
+     * @param byState
+     * @param credentials
+     * @param matchers
+     * @return
+     * @throws Exception
+     */
+    protected MappingIterator<Booking> streamBookings(BookingState byState, String credentials, ResultMatcher... matchers) throws Exception {
+        return parseElements(request(buildGetBookingsRequest(byState, credentials), matchers), Booking.class);
+    }
+
+    protected MockHttpServletRequestBuilder buildGetBookingByIdRequest(String bookingId, String credentials) {
         MockHttpServletRequestBuilder builder = get("/api/bookings/" + bookingId)
                 .header("Content-Type", "application/json");
 
         addCredentialsToRequestBuilder(builder, credentials);
 
+        return builder;
+    }
+
+    protected Booking getBookingById(String bookingId, String credentials, ResultMatcher... matchers) throws Exception {
         // By sending "newBooking" to the API, we receive a Booking object.
-        return request(builder, Booking.class, matchers);
+        return request(buildGetBookingByIdRequest(bookingId, credentials), Booking.class, matchers);
+    }
+
+    /**
+     * Same as {@link #getBookingById(String, String, ResultMatcher...)} but
+     * does not wait for the response.
+     *
+     * @param bookingId
+     * @param credentials
+     * @param matchers
+     * @return
+     */
+    protected CompletableFuture<Booking> getBookingByIdAsync(String bookingId, String credentials, ResultMatcher... matchers) {
+        return requestAsync(buildGetBookingByIdRequest(bookingId, credentials), Booking.class, matchers);
     }
 
 }
@@ -0,0 +1,109 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2020 Hochschule Esslingen
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE. 
+ */
+package de.hsesslingen.keim.efs.test.adapter;
+
+import de.hsesslingen.keim.efs.middleware.model.Booking;
+import de.hsesslingen.keim.efs.middleware.model.BookingState;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Keeps track of the bookings created by the harness which are still open,
+ * along with the credentials they were created with, so they can be closed
+ * when a test is done. Bookings are forgotten once they reached a closed
+ * state. Thread safe.
+ */
+public class BookingRegistry {
+
+    private static final Set<BookingState> CLOSED = EnumSet.of(BookingState.CANCELLED, BookingState.FINISHED, BookingState.ABORTED);
+
+    private final ConcurrentMap<String, Tracked> bookings = new ConcurrentHashMap<>();
+
+    /**
+     * Records the latest known state of the given booking, as returned by the
+     * adapter. Closed bookings are forgotten.
+     *
+     * @param booking
+     * @param credentials
+     */
+    public void track(Booking booking, String credentials) {
+        if (booking == null || booking.getId() == null) {
+            return;
+        }
+
+        if (booking.getState() == null || CLOSED.contains(booking.getState())) {
+            bookings.remove(booking.getId());
+        } else {
+            bookings.put(booking.getId(), new Tracked(booking, credentials));
+        }
+    }
+
+    public void forget(String bookingId) {
+        bookings.remove(bookingId);
+    }
+
+    /**
+     * Returns the bookings which are still open.
+     *
+     * @return
+     */
+    public List<Tracked> getOpen() {
+        return new ArrayList<>(bookings.values());
+    }
+
+    public int size() {
+        return bookings.size();
+    }
+
+    public static boolean isClosed(BookingState state) {
+        return CLOSED.contains(state);
+    }
+
+    /**
+     * A booking and the credentials it belongs to.
+     */
+    public static final class Tracked {
+
+        private final Booking booking;
+        private final String credentials;
+
+        private Tracked(Booking booking, String credentials) {
+            this.booking = booking;
+            this.credentials = credentials;
+        }
+
+        public Booking getBooking() {
+            return booking;
+        }
+
+        public String getCredentials() {
+            return credentials;
+        }
+    }
+
+}
@@ -0,0 +1,185 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2020 Hochschule Esslingen
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE. 
+ */
+package de.hsesslingen.keim.efs.test.adapter;
+
+import de.hsesslingen.keim.efs.middleware.model.BookingState;
+import static de.hsesslingen.keim.efs.middleware.model.BookingState.ABORTED;
+import static de.hsesslingen.keim.efs.middleware.model.BookingState.BOOKED;
+import static de.hsesslingen.keim.efs.middleware.model.BookingState.CANCELLED;
+import static de.hsesslingen.keim.efs.middleware.model.BookingState.FINISHED;
+import static de.hsesslingen.keim.efs.middleware.model.BookingState.STARTED;
+import static de.hsesslingen.keim.efs.middleware.model.BookingState.UPDATEREQUESTED;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Describes which modifications of a booking an adapter must accept and which
+ * it must reject. Any transition that was not explicitly allowed is expected
+ * to be rejected with a 4xx status.
+ */
+public class BookingStateModel {
+
+    public enum Outcome {
+        /**
+         * The modification must succeed.
+         */
+        ACCEPT,
+        /**
+         * The modification must fail with a 4xx status.
+         */
+        REJECT,
+        /**
+         * Both is fine. Used for optional features like updates.
+         */
+        EITHER
+    }
+
+    private final Map<BookingState, Map<BookingState, Transition>> transitions = new EnumMap<>(BookingState.class);
+
+    /**
+     * Returns the model the lifecycle tests of {@link AdapterIntegrationTest}
+     * are based on: A booked booking can be started or cancelled, a started
+     * booking can be finished or aborted. Adapters may finish a booking when
+     * it is aborted and vice versa. Updates are optional.
+     *
+     * @return
+     */
+    public static BookingStateModel standard() {
+        return new BookingStateModel()
+                .allow(BOOKED, STARTED, STARTED)
+                .allow(BOOKED, CANCELLED, CANCELLED)
+                .allowOptionally(BOOKED, UPDATEREQUESTED, BOOKED)
+                .allow(STARTED, FINISHED, FINISHED, ABORTED)
+                .allow(STARTED, ABORTED, FINISHED, ABORTED)
+                .allowOptionally(STARTED, UPDATEREQUESTED, STARTED);
+    }
+
+    /**
+     * Declares that requesting {@code requested} on a booking in state
+     * {@code from} must succeed and result in one of the given states.
+     *
+     * @param from
+     * @param requested
+     * @param results
+     * @return
+     */
+    public BookingStateModel allow(BookingState from, BookingState requested, BookingState... results) {
+        return put(from, requested, Outcome.ACCEPT, results);
+    }
+
+    /**
+     * Same as {@link #allow(BookingState, BookingState, BookingState...)}, but
+     * the adapter may reject the modification as well.
+     *
+     * @param from
+     * @param requested
+     * @param results
+     * @return
+     */
+    public BookingStateModel allowOptionally(BookingState from, BookingState requested, BookingState... results) {
+        return put(from, requested, Outcome.EITHER, results);
+    }
+
+    private BookingStateModel put(BookingState from, BookingState requested, Outcome outcome, BookingState... results) {
+        var resultSet = results.length > 0 ? EnumSet.of(results[0], results) : EnumSet.of(requested);
+
+        transitions.computeIfAbsent(from, f -> new EnumMap<>(BookingState.class))
+                .put(requested, new Transition(outcome, resultSet));
+
+        return this;
+    }
+
+    /**
+     * Returns the expected result of requesting {@code requested} on a
+     * booking in state {@code from}.
+     *
+     * @param from
+     * @param requested
+     * @return
+     */
+    public Transition expect(BookingState from, BookingState requested) {
+        var fromTransitions = transitions.get(from);
+        var transition = fromTransitions != null ? fromTransitions.get(requested) : null;
+        return transition != null ? transition : Transition.REJECTED;
+    }
+
+    /**
+     * Returns the states which may be requested from {@code from} without
+     * being rejected.
+     *
+     * @param from
+     * @return
+     */
+    public List<BookingState> allowedFrom(BookingState from) {
+        var fromTransitions = transitions.get(from);
+        return fromTransitions != null ? new ArrayList<>(fromTransitions.keySet()) : Collections.emptyList();
+    }
+
+    /**
+     * Returns whether no modification is allowed anymore in the given state.
+     *
+     * @param state
+     * @return
+     */
+    public boolean isTerminal(BookingState state) {
+        return allowedFrom(state).isEmpty();
+    }
+
+    public static final class Transition {
+
+        private static final Transition REJECTED = new Transition(Outcome.REJECT, Collections.emptySet());
+
+        private final Outcome outcome;
+        private final Set<BookingState> results;
+
+        private Transition(Outcome outcome, Set<BookingState> results) {
+            this.outcome = outcome;
+            this.results = Collections.unmodifiableSet(results);
+        }
+
+        public Outcome getOutcome() {
+            return outcome;
+        }
+
+        /**
+         * The states a booking may have after the modification succeeded.
+         *
+         * @return
+         */
+        public Set<BookingState> getResults() {
+            return results;
+        }
+
+        @Override
+        public String toString() {
+            return outcome + (results.isEmpty() ? "" : " " + results);
+        }
+    }
+
+}
@@ -0,0 +1,68 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2020 Hochschule Esslingen
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE. 
+ */
+package de.hsesslingen.keim.efs.test.adapter;
+
+import de.hsesslingen.keim.efs.middleware.model.BookingState;
+
+/**
+ * The steps a booking passes through during its lifecycle, as seen from the
+ * harness. Used as keys when measuring the individual steps.
+ */
+public enum LifecycleStep {
+    CREATE,
+    START,
+    FINISH,
+    CANCEL,
+    ABORT,
+    /**
+     * A modification which is expected to be rejected by the adapter.
+     */
+    REJECT,
+    /**
+     * Any other successful modification.
+     */
+    MODIFY;
+
+    /**
+     * Returns the step that corresponds to a successful modification towards
+     * the given state.
+     *
+     * @param state
+     * @return
+     */
+    public static LifecycleStep of(BookingState state) {
+        switch (state) {
+            case STARTED:
+                return START;
+            case FINISHED:
+                return FINISH;
+            case CANCELLED:
+                return CANCEL;
+            case ABORTED:
+                return ABORT;
+            default:
+                return MODIFY;
+        }
+    }
+}
@@ -0,0 +1,198 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2020 Hochschule Esslingen
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE. 
+ */
+package de.hsesslingen.keim.efs.test.adapter;
+
+import de.hsesslingen.keim.efs.middleware.model.Option;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Thread safe cache for options, keyed by the complete {@link OptionsQuery}.
+ * <p>
+ * Entries expire after a fixed time to live, counted from the moment they were
+ * loaded. If the cache grows beyond its maximum size, the least recently used
+ * entries are evicted. Concurrent requests for the same missing query are
+ * collapsed into a single load, all callers wait for its result. Entries which
+ * are still loading are never evicted, so the cache may exceed its maximum
+ * size until their loads complete.
+ */
+public class OptionsCache {
+
+    private final long ttlNanos;
+    private final int maxSize;
+
+    // Access ordered, so iteration starts with the least recently used entry. Guarded by "this".
+    private final LinkedHashMap<OptionsQuery, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public OptionsCache(Duration ttl, int maxSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("The maximum size must be at least 1.");
+        }
+        this.ttlNanos = ttl.toNanos();
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Returns the cached options for the given query. If there are none or
+     * they are expired, they are loaded using the given loader. The returned
+     * list is unmodifiable.
+     *
+     * @param query
+     * @param loader
+     * @return
+     * @throws Exception whatever the loader threw.
+     */
+    public List<Option> get(OptionsQuery query, Loader loader) throws Exception {
+        Entry entry;
+        boolean loadHere = false;
+
+        synchronized (this) {
+            entry = entries.get(query);
+
+            if (entry != null && entry.isExpired(System.nanoTime())) {
+                entries.remove(query);
+                entry = null;
+            }
+
+            if (entry == null) {
+                entry = new Entry();
+                entries.put(query, entry);
+                loadHere = true;
+                evictIfNecessary();
+            }
+        }
+
+        if (loadHere) {
+            misses.incrementAndGet();
+            load(query, entry, loader);
+        } else {
+            hits.incrementAndGet();
+        }
+
+        return entry.await();
+    }
+
+    private void load(OptionsQuery query, Entry entry, Loader loader) {
+        try {
+            List<Option> options = Collections.unmodifiableList(loader.load(query));
+            entry.loadedAt = System.nanoTime();
+            entry.future.complete(options);
+
+            // Entries which were loading could not be evicted before.
+            synchronized (this) {
+                evictIfNecessary();
+            }
+        } catch (Throwable ex) {
+            // Don't cache failures, the next caller should try again.
+            synchronized (this) {
+                entries.remove(query, entry);
+            }
+            entry.future.completeExceptionally(ex);
+        }
+    }
+
+    private void evictIfNecessary() {
+        Iterator<Entry> it = entries.values().iterator();
+
+        while (entries.size() > maxSize && it.hasNext()) {
+            // Evicting a loading entry would start a second load for its query.
+            if (it.next().future.isDone()) {
+                it.remove();
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    @Override
+    public String toString() {
+        return "OptionsCache{size=" + size() + ", hits=" + hits + ", misses=" + misses + ", evictions=" + evictions + '}';
+    }
+
+    /**
+     * Loads the options for a query that is not cached.
+     */
+    @FunctionalInterface
+    public interface Loader {
+
+        List<Option> load(OptionsQuery query) throws Exception;
+    }
+
+    private class Entry {
+
+        private final CompletableFuture<List<Option>> future = new CompletableFuture<>();
+        private volatile long loadedAt;
+
+        private boolean isExpired(long now) {
+            // Entries which are still loading never expire.
+            return future.isDone() && now - loadedAt > ttlNanos;
+        }
+
+        private List<Option> await() throws Exception {
+            try {
+                return future.get();
+            } catch (ExecutionException ex) {
+                Throwable cause = ex.getCause();
+
+                if (cause instanceof Exception) {
+                    throw (Exception) cause;
+                } else if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+
+                throw ex;
+            }
+        }
+    }
+
+}
@@ -0,0 +1,123 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2020 Hochschule Esslingen
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE. 
+ */
+package de.hsesslingen.keim.efs.test.adapter;
+
+import java.time.Instant;
+import static java.time.temporal.ChronoUnit.MINUTES;
+import java.util.Objects;
+
+/**
+ * The parameters of an options request. Used as key in the
+ * {@link OptionsCache}.
+ * <p>
+ * Start and end time are truncated to full minutes, so that implementations
+ * of {@link AdapterIntegrationTest#getStartTime()} which return values based
+ * on {@link Instant#now()} still hit the cache for subsequent calls.
+ */
+public final class OptionsQuery {
+
+    private final String fromLatLon;
+    private final String toLatLon;
+    private final Instant startTime;
+    private final Instant endTime;
+    private final Integer radius;
+    private final Boolean sharing;
+    private final String credentials;
+
+    public OptionsQuery(
+            String fromLatLon, String toLatLon,
+            Instant startTime, Instant endTime,
+            Integer radius, Boolean sharing,
+            String credentials
+    ) {
+        this.fromLatLon = fromLatLon;
+        this.toLatLon = toLatLon;
+        this.startTime = startTime != null ? startTime.truncatedTo(MINUTES) : null;
+        this.endTime = endTime != null ? endTime.truncatedTo(MINUTES) : null;
+        this.radius = radius;
+        this.sharing = sharing;
+        this.credentials = credentials;
+    }
+
+    public String getFromLatLon() {
+        return fromLatLon;
+    }
+
+    public String getToLatLon() {
+        return toLatLon;
+    }
+
+    public Instant getStartTime() {
+        return startTime;
+    }
+
+    public Instant getEndTime() {
+        return endTime;
+    }
+
+    public Integer getRadius() {
+        return radius;
+    }
+
+    public Boolean getSharing() {
+        return sharing;
+    }
+
+    public String getCredentials() {
+        return credentials;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof OptionsQuery)) {
+            return false;
+        }
+        OptionsQuery other = (OptionsQuery) o;
+        return Objects.equals(fromLatLon, other.fromLatLon)
+                && Objects.equals(toLatLon, other.toLatLon)
+                && Objects.equals(startTime, other.startTime)
+                && Objects.equals(endTime, other.endTime)
+                && Objects.equals(radius, other.radius)
+                && Objects.equals(sharing, other.sharing)
+                && Objects.equals(credentials, other.credentials);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(fromLatLon, toLatLon, startTime, endTime, radius, sharing, credentials);
+    }
+
+    @Override
+    public String toString() {
+        // Credentials are left out on purpose, this ends up in logs.
+        return "OptionsQuery{from=" + fromLatLon + ", to=" + toLatLon
+                + ", startTime=" + startTime + ", endTime=" + endTime
+                + ", radius=" + radius + ", sharing=" + sharing
+                + ", credentials=" + (credentials != null ? "***" : null) + '}';
+    }
+
+}
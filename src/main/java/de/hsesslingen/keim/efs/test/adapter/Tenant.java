@@ -0,0 +1,74 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2020 Hochschule Esslingen
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE. 
+ */
+package de.hsesslingen.keim.efs.test.adapter;
+
+import de.hsesslingen.keim.efs.middleware.model.Customer;
+
+/**
+ * A user of the adapter, with the credentials it sends and the customer it
+ * books for. Load runs spread their requests over several tenants to reveal
+ * per user caches, locks and session pools of the adapter.
+ */
+public final class Tenant {
+
+    private final String id;
+    private final String optionsCredentials;
+    private final String bookingCredentials;
+    private final Customer customer;
+
+    /**
+     * @param id Identifies the tenant in reports, must not contain secrets.
+     * @param optionsCredentials
+     * @param bookingCredentials
+     * @param customer
+     */
+    public Tenant(String id, String optionsCredentials, String bookingCredentials, Customer customer) {
+        this.id = id;
+        this.optionsCredentials = optionsCredentials;
+        this.bookingCredentials = bookingCredentials;
+        this.customer = customer;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getOptionsCredentials() {
+        return optionsCredentials;
+    }
+
+    public String getBookingCredentials() {
+        return bookingCredentials;
+    }
+
+    public Customer getCustomer() {
+        return customer;
+    }
+
+    @Override
+    public String toString() {
+        return id;
+    }
+
+}
@@ -0,0 +1,177 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2020 Hochschule Esslingen
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE. 
+ */
+package de.hsesslingen.keim.efs.test.adapter;
+
+import de.hsesslingen.keim.efs.test.adapter.perf.LatencyRecorder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * A fixed set of tenants from which load runs draw the tenant of each
+ * iteration. Tenants are either drawn uniformly or following a Zipf
+ * distribution, where the first tenants are hot and the rest form a long
+ * tail. Thread safe.
+ */
+public final class TenantPool {
+
+    private final List<Tenant> tenants;
+    private final double[] cumulative;
+    private final String skew;
+
+    private TenantPool(List<Tenant> tenants, double[] weights, String skew) {
+        if (tenants.isEmpty()) {
+            throw new IllegalArgumentException("A tenant pool needs at least one tenant.");
+        }
+
+        this.tenants = List.copyOf(tenants);
+        this.cumulative = new double[weights.length];
+        this.skew = skew;
+
+        double total = Arrays.stream(weights).sum();
+        double sum = 0;
+
+        for (int i = 0; i < weights.length; ++i) {
+            sum += weights[i] / total;
+            cumulative[i] = sum;
+        }
+
+        // Guard against rounding, so the last tenant is always reachable.
+        cumulative[weights.length - 1] = 1;
+    }
+
+    /**
+     * Every tenant is drawn with the same probability.
+     *
+     * @param tenants
+     * @return
+     */
+    public static TenantPool uniform(List<Tenant> tenants) {
+        var weights = new double[tenants.size()];
+        Arrays.fill(weights, 1);
+        return new TenantPool(tenants, weights, "uniform");
+    }
+
+    /**
+     * The tenant at index {@code i} is drawn with a probability proportional
+     * to {@code 1 / (i + 1)^exponent}. With an exponent of 1, the first of 100
+     * tenants gets about a fifth of all iterations.
+     *
+     * @param tenants
+     * @param exponent
+     * @return
+     */
+    public static TenantPool zipf(List<Tenant> tenants, double exponent) {
+        var weights = new double[tenants.size()];
+
+        for (int i = 0; i < weights.length; ++i) {
+            weights[i] = 1 / Math.pow(i + 1, exponent);
+        }
+
+        return new TenantPool(tenants, weights, "zipf(" + exponent + ")");
+    }
+
+    /**
+     * Creates the given number of tenants with ids {@code tenant-0},
+     * {@code tenant-1}, ... The factory creates the tenant of each index with
+     * that id, e.g. with credentials of a synthetic user registered at the
+     * provider.
+     *
+     * @param count
+     * @param factory
+     * @return
+     */
+    public static List<Tenant> synthetic(int count, SyntheticTenant factory) {
+        var tenants = new ArrayList<Tenant>(count);
+
+        for (int i = 0; i < count; ++i) {
+            tenants.add(factory.create(i, "tenant-" + i));
+        }
+
+        return tenants;
+    }
+
+    /**
+     * Draws a tenant.
+     *
+     * @param random
+     * @return
+     */
+    public Tenant next(Random random) {
+        int index = Arrays.binarySearch(cumulative, random.nextDouble());
+        return tenants.get(index >= 0 ? index : -index - 1);
+    }
+
+    public List<Tenant> getTenants() {
+        return tenants;
+    }
+
+    /**
+     * The probability with which the tenant at the given index is drawn.
+     *
+     * @param index
+     * @return
+     */
+    public double getShare(int index) {
+        return index == 0 ? cumulative[0] : cumulative[index] - cumulative[index - 1];
+    }
+
+    /**
+     * Renders a table with the latency recorded under the id of each tenant,
+     * hottest tenant first. Tenants which were never drawn are left out.
+     *
+     * @param latencies
+     * @return
+     */
+    public String report(LatencyRecorder latencies) {
+        var sb = new StringBuilder();
+        sb.append(this).append(':');
+
+        for (int i = 0; i < tenants.size(); ++i) {
+            var summary = latencies.getSummary(tenants.get(i).getId());
+
+            if (summary != null) {
+                sb.append(String.format("%n  %-16s share=%5.1f%% %s", tenants.get(i).getId(), 100 * getShare(i), summary));
+            }
+        }
+
+        return sb.toString();
+    }
+
+    @Override
+    public String toString() {
+        return tenants.size() + " tenants, " + skew;
+    }
+
+    /**
+     * Creates the tenant of a particular index.
+     */
+    @FunctionalInterface
+    public interface SyntheticTenant {
+
+        Tenant create(int index, String id);
+    }
+
+}
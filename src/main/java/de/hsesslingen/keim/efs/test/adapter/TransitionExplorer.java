@@ -0,0 +1,302 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2020 Hochschule Esslingen
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE. 
+ */
+package de.hsesslingen.keim.efs.test.adapter;
+
+import de.hsesslingen.keim.efs.middleware.model.BookingState;
+import de.hsesslingen.keim.efs.test.adapter.perf.LatencyRecorder;
+import de.hsesslingen.keim.efs.test.adapter.perf.LoadRunner;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.slf4j.Logger;
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Generates random sequences of requested booking states, runs them in
+ * parallel, each one on its own booking, and shrinks failing sequences to a
+ * minimal one that still fails.
+ * <p>
+ * Sequences are generated by walking the {@link BookingStateModel}, but
+ * include forbidden transitions and requests on closed bookings as well. The
+ * expectations are always derived from the actual state of the booking, so a
+ * sequence stays meaningful when steps are removed while shrinking.
+ */
+public class TransitionExplorer {
+
+    private static final Logger logger = getLogger(TransitionExplorer.class);
+
+    private static final BookingState[] ALL_STATES = BookingState.values();
+
+    /**
+     * Probability of picking an arbitrary state instead of an allowed one.
+     */
+    private static final double FORBIDDEN_PROBABILITY = 0.3;
+
+    private final BookingStateModel model;
+    private final SequenceRunner runner;
+    private final int concurrency;
+    private final long timeoutMillis;
+
+    /**
+     * @param model
+     * @param runner Executes a sequence on a fresh booking.
+     * @param concurrency Number of sequences run at the same time.
+     * @param timeoutMillis Upper bound for running all sequences.
+     */
+    public TransitionExplorer(BookingStateModel model, SequenceRunner runner, int concurrency, long timeoutMillis) {
+        this.model = model;
+        this.runner = runner;
+        this.concurrency = concurrency;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * Generates a random sequence of at most {@code maxSteps} requested states,
+     * assuming the booking starts in state BOOKED.
+     *
+     * @param random
+     * @param maxSteps
+     * @return
+     */
+    public List<BookingState> generate(Random random, int maxSteps) {
+        var sequence = new ArrayList<BookingState>();
+        var state = BookingState.BOOKED;
+        int steps = 1 + random.nextInt(maxSteps);
+
+        for (int i = 0; i < steps; ++i) {
+            var allowed = model.allowedFrom(state);
+            BookingState requested;
+
+            if (allowed.isEmpty() || random.nextDouble() < FORBIDDEN_PROBABILITY) {
+                requested = ALL_STATES[random.nextInt(ALL_STATES.length)];
+            } else {
+                requested = allowed.get(random.nextInt(allowed.size()));
+            }
+
+            sequence.add(requested);
+
+            var transition = model.expect(state, requested);
+
+            if (transition.getOutcome() != BookingStateModel.Outcome.REJECT) {
+                // Assume the first possible result. The real one is only known when running.
+                state = transition.getResults().iterator().next();
+            }
+        }
+
+        return sequence;
+    }
+
+    /**
+     * Generates and runs {@code sequences} random sequences and returns the
+     * shrunk failures, shortest first. Sequences which did not finish within
+     * the timeout are failures as well. They are not shrunk, as running them
+     * again would likely hang again, and come last. Generation is seeded, so a
+     * run can be repeated with the same seed.
+     *
+     * @param sequences
+     * @param maxSteps
+     * @param seed
+     * @return
+     * @throws InterruptedException
+     */
+    public List<Failure> explore(int sequences, int maxSteps, long seed) throws InterruptedException {
+        var random = new Random(seed);
+        var generated = new ArrayList<List<BookingState>>(sequences);
+
+        for (int i = 0; i < sequences; ++i) {
+            generated.add(generate(random, maxSteps));
+        }
+
+        logger.info("Exploring {} booking state sequences with seed {}.", sequences, seed);
+
+        var failures = Collections.synchronizedList(new ArrayList<Failure>());
+        var finished = ConcurrentHashMap.<Integer>newKeySet();
+
+        var result = new LoadRunner(concurrency, timeoutMillis, new LatencyRecorder()).run(sequences, i -> () -> {
+            var sequence = generated.get(i);
+            String message;
+
+            try {
+                message = runner.run(sequence);
+            } catch (InterruptedException ex) {
+                // Interrupted because of the timeout, so the sequence did not finish.
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception | AssertionError ex) {
+                message = ex.toString();
+            }
+
+            if (message != null) {
+                failures.add(new Failure(sequence, message));
+            }
+
+            finished.add(i);
+        });
+
+        var unfinished = new ArrayList<Failure>();
+
+        // Interrupted sequences return normally, so the load result does not count all of them.
+        if (finished.size() < sequences) {
+            logger.warn("{} of {} sequences did not finish, e.g.: {}", sequences - finished.size(), sequences, result.getSampleFailures());
+
+            for (int i = 0; i < sequences; ++i) {
+                if (!finished.contains(i)) {
+                    unfinished.add(new Failure(generated.get(i), "Did not finish within " + timeoutMillis + "ms."));
+                }
+            }
+        }
+
+        var shrunk = new ArrayList<Failure>();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+
+        synchronized (failures) {
+            for (Failure failure : failures) {
+                shrunk.add(shrink(failure, deadline));
+            }
+        }
+
+        shrunk.sort(Comparator.comparingInt(f -> f.getSequence().size()));
+        shrunk.addAll(unfinished);
+        return shrunk;
+    }
+
+    /**
+     * Removes steps from the sequence of the given failure as long as the
+     * remaining sequence still fails. As failures caused by races are not
+     * always reproducible, the result is not guaranteed to be minimal.
+     * Shrinking stops after the timeout of the explorer, returning the
+     * shortest failing sequence found so far.
+     *
+     * @param failure
+     * @return
+     */
+    public Failure shrink(Failure failure) {
+        return shrink(failure, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis));
+    }
+
+    private Failure shrink(Failure failure, long deadline) {
+        ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+            var thread = new Thread(r, "efs-shrink");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        var current = failure;
+        boolean removedStep = true;
+
+        try {
+            while (removedStep && current.getSequence().size() > 1) {
+                removedStep = false;
+
+                for (int i = 0; i < current.getSequence().size(); ++i) {
+                    var candidate = new ArrayList<>(current.getSequence());
+                    candidate.remove(i);
+
+                    long remaining = deadline - System.nanoTime();
+
+                    if (remaining <= 0) {
+                        logger.warn("Stopped shrinking {} after {}ms, the sequence may not be minimal.", failure.getSequence(), timeoutMillis);
+                        return current;
+                    }
+
+                    Future<String> run = executor.submit(() -> runner.run(candidate));
+                    String message;
+
+                    try {
+                        message = run.get(remaining, TimeUnit.NANOSECONDS);
+                    } catch (TimeoutException ex) {
+                        run.cancel(true);
+                        logger.warn("Stopped shrinking {} after {}ms, the sequence may not be minimal.", failure.getSequence(), timeoutMillis);
+                        return current;
+                    } catch (InterruptedException ex) {
+                        run.cancel(true);
+                        Thread.currentThread().interrupt();
+                        return current;
+                    } catch (ExecutionException ex) {
+                        message = ex.getCause().toString();
+                    }
+
+                    if (message != null) {
+                        current = new Failure(candidate, message);
+                        removedStep = true;
+                        break;
+                    }
+                }
+            }
+
+            return current;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Runs a sequence of requested states on a fresh booking.
+     */
+    @FunctionalInterface
+    public interface SequenceRunner {
+
+        /**
+         * @param sequence
+         * @return null if the adapter behaved as expected, otherwise a
+         * description of what went wrong.
+         * @throws Exception
+         */
+        String run(List<BookingState> sequence) throws Exception;
+    }
+
+    public static final class Failure {
+
+        private final List<BookingState> sequence;
+        private final String message;
+
+        public Failure(List<BookingState> sequence, String message) {
+            this.sequence = Collections.unmodifiableList(new ArrayList<>(sequence));
+            this.message = message;
+        }
+
+        public List<BookingState> getSequence() {
+            return sequence;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        @Override
+        public String toString() {
+            return sequence + ": " + message;
+        }
+    }
+
+}
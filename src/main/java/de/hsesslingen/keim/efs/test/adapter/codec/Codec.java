@@ -0,0 +1,84 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2020 Hochschule Esslingen
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE. 
+ */
+package de.hsesslingen.keim.efs.test.adapter.codec;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectReader;
+import java.io.IOException;
+
+/**
+ * The wire format used for request and response bodies. All implementations
+ * are backed by Jackson, so the models are (de)serialized with the same
+ * annotations and modules regardless of the format.
+ *
+ * @see JacksonCodec
+ */
+public interface Codec {
+
+    /**
+     * A short name of the format, e.g. "json", "smile" or "cbor".
+     *
+     * @return
+     */
+    public String getName();
+
+    /**
+     * The media type used in the Content-Type and Accept headers.
+     *
+     * @return
+     */
+    public String getMediaType();
+
+    public byte[] encode(Object value) throws JsonProcessingException;
+
+    public <T> T decode(byte[] content, JavaType type) throws IOException;
+
+    /**
+     * Returns a cached reader for the given type. Useful for streaming the
+     * elements of large arrays.
+     *
+     * @param type
+     * @return
+     */
+    public ObjectReader readerFor(JavaType type);
+
+    /**
+     * Checks whether the given Content-Type header denotes the media type of
+     * this codec. Parameters like the charset are ignored.
+     *
+     * @param contentType
+     * @return
+     */
+    public default boolean matches(String contentType) {
+        if (contentType == null) {
+            return false;
+        }
+
+        int semicolon = contentType.indexOf(';');
+        String mediaType = (semicolon < 0 ? contentType : contentType.substring(0, semicolon)).trim();
+
+        return mediaType.equalsIgnoreCase(getMediaType());
+    }
+}
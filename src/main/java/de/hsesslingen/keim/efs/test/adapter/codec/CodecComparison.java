@@ -0,0 +1,254 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2020 Hochschule Esslingen
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE. 
+ */
+package de.hsesslingen.keim.efs.test.adapter.codec;
+
+import com.fasterxml.jackson.databind.JavaType;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Compares codecs by encoded size and encode/decode speed on a set of sample
+ * payloads, e.g. an options list as returned by the adapter.
+ * <p>
+ * Each sample is encoded and decoded a number of times for warm up, then the
+ * same number of operations is timed. This is a rough comparison within a
+ * test run. Use the JMH benchmarks for numbers that are robust against JIT
+ * and GC effects.
+ */
+public class CodecComparison {
+
+    private final List<? extends Codec> codecs;
+    private final int warmupIterations;
+    private final int iterations;
+
+    private final Map<String, Sample> samples = new LinkedHashMap<>();
+    private final List<Result> results = new ArrayList<>();
+
+    /**
+     * Used to keep the JIT from eliminating the measured work.
+     */
+    private volatile int sink;
+
+    /**
+     * @param codecs The codecs to compare. The first one is the reference for
+     * the size ratio in the report, usually JSON.
+     * @param warmupIterations
+     * @param iterations
+     */
+    public CodecComparison(List<? extends Codec> codecs, int warmupIterations, int iterations) {
+        if (codecs.isEmpty()) {
+            throw new IllegalArgumentException("At least one codec is required.");
+        }
+
+        this.codecs = List.copyOf(codecs);
+        this.warmupIterations = warmupIterations;
+        this.iterations = Math.max(1, iterations);
+    }
+
+    /**
+     * Adds a sample payload. The type is used for decoding and must describe
+     * the sample, e.g. a collection type for lists.
+     *
+     * @param label
+     * @param value
+     * @param type
+     * @return
+     */
+    public CodecComparison add(String label, Object value, JavaType type) {
+        samples.put(label, new Sample(label, value, type));
+        return this;
+    }
+
+    /**
+     * Runs the comparison for all samples and codecs. Previous results are
+     * discarded.
+     *
+     * @return
+     * @throws IOException
+     */
+    public List<Result> run() throws IOException {
+        results.clear();
+
+        for (Sample sample : samples.values()) {
+            for (Codec codec : codecs) {
+                results.add(measure(sample, codec));
+            }
+        }
+
+        return getResults();
+    }
+
+    private Result measure(Sample sample, Codec codec) throws IOException {
+        byte[] encoded = codec.encode(sample.value);
+        Object decoded = codec.decode(encoded, sample.type);
+
+        // Encoding the decoded value again must yield the same bytes, otherwise the codec loses information.
+        boolean lossless = Arrays.equals(encoded, codec.encode(decoded));
+
+        for (int i = 0; i < warmupIterations; ++i) {
+            sink += codec.encode(sample.value).length;
+            sink += codec.decode(encoded, sample.type).hashCode();
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; ++i) {
+            sink += codec.encode(sample.value).length;
+        }
+        long encodeNanos = (System.nanoTime() - start) / iterations;
+
+        start = System.nanoTime();
+        for (int i = 0; i < iterations; ++i) {
+            sink += codec.decode(encoded, sample.type).hashCode();
+        }
+        long decodeNanos = (System.nanoTime() - start) / iterations;
+
+        return new Result(sample.label, codec.getName(), encoded.length, encodeNanos, decodeNanos, lossless);
+    }
+
+    public List<Result> getResults() {
+        return List.copyOf(results);
+    }
+
+    public String report() {
+        var sb = new StringBuilder();
+        var reference = new LinkedHashMap<String, Result>();
+
+        sb.append(String.format("%-20s %-6s %10s %7s %12s %12s %10s %10s %s%n",
+                "sample", "codec", "bytes", "size", "encode", "decode", "enc MB/s", "dec MB/s", "lossless"));
+
+        for (Result r : results) {
+            var ref = reference.computeIfAbsent(r.sample, k -> r);
+
+            sb.append(String.format(Locale.ROOT, "%-20s %-6s %10d %6.0f%% %10.1fus %10.1fus %10.1f %10.1f %s%n",
+                    r.sample, r.codec, r.bytes,
+                    100.0 * r.bytes / Math.max(1, ref.bytes),
+                    r.encodeNanos / 1000.0, r.decodeNanos / 1000.0,
+                    r.getEncodeMegabytesPerSecond(), r.getDecodeMegabytesPerSecond(),
+                    r.lossless ? "yes" : "NO"));
+        }
+
+        return sb.toString();
+    }
+
+    public void writeCsv(Path file) throws IOException {
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+
+        var sb = new StringBuilder("sample,codec,bytes,encodeMicros,decodeMicros,lossless\n");
+
+        for (Result r : results) {
+            sb.append('"').append(r.sample).append('"').append(',')
+                    .append(r.codec).append(',')
+                    .append(r.bytes).append(',')
+                    .append(String.format(Locale.ROOT, "%.3f", r.encodeNanos / 1000.0)).append(',')
+                    .append(String.format(Locale.ROOT, "%.3f", r.decodeNanos / 1000.0)).append(',')
+                    .append(r.lossless).append('\n');
+        }
+
+        Files.writeString(file, sb, StandardCharsets.UTF_8);
+    }
+
+    private static class Sample {
+
+        private final String label;
+        private final Object value;
+        private final JavaType type;
+
+        private Sample(String label, Object value, JavaType type) {
+            this.label = label;
+            this.value = value;
+            this.type = type;
+        }
+    }
+
+    /**
+     * The outcome of a single sample with a single codec. Times are per
+     * operation.
+     */
+    public static class Result {
+
+        private final String sample;
+        private final String codec;
+        private final int bytes;
+        private final long encodeNanos;
+        private final long decodeNanos;
+        private final boolean lossless;
+
+        private Result(String sample, String codec, int bytes, long encodeNanos, long decodeNanos, boolean lossless) {
+            this.sample = sample;
+            this.codec = codec;
+            this.bytes = bytes;
+            this.encodeNanos = encodeNanos;
+            this.decodeNanos = decodeNanos;
+            this.lossless = lossless;
+        }
+
+        public String getSample() {
+            return sample;
+        }
+
+        public String getCodec() {
+            return codec;
+        }
+
+        public int getBytes() {
+            return bytes;
+        }
+
+        public long getEncodeNanos() {
+            return encodeNanos;
+        }
+
+        public long getDecodeNanos() {
+            return decodeNanos;
+        }
+
+        public boolean isLossless() {
+            return lossless;
+        }
+
+        public double getEncodeMegabytesPerSecond() {
+            return encodeNanos > 0 ? bytes * 1000.0 / encodeNanos : 0;
+        }
+
+        public double getDecodeMegabytesPerSecond() {
+            return decodeNanos > 0 ? bytes * 1000.0 / decodeNanos : 0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%s/%s: %d bytes, encode %.1fus, decode %.1fus",
+                    sample, codec, bytes, encodeNanos / 1000.0, decodeNanos / 1000.0);
+        }
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2020 Hochschule Esslingen
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE. 
+ */
+package de.hsesslingen.keim.efs.test.adapter.codec;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.deser.DefaultDeserializationContext;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A {@link Codec} backed by an {@link ObjectMapper}. The binary codecs are
+ * derived from the mapper of the adapter, so they share its configuration,
+ * mix-ins and registered modules and only differ in the format.
+ */
+public final class JacksonCodec implements Codec {
+
+    public static final String JSON = "json";
+    public static final String SMILE = "smile";
+    public static final String CBOR = "cbor";
+
+    private final String name;
+    private final String mediaType;
+    private final ObjectMapper mapper;
+
+    private final ConcurrentMap<JavaType, ObjectReader> readers = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Class<?>, ObjectWriter> writers = new ConcurrentHashMap<>();
+
+    public JacksonCodec(String name, String mediaType, ObjectMapper mapper) {
+        this.name = name;
+        this.mediaType = mediaType;
+        this.mapper = mapper;
+    }
+
+    public static JacksonCodec json(ObjectMapper mapper) {
+        return new JacksonCodec(JSON, "application/json", mapper);
+    }
+
+    public static JacksonCodec smile(ObjectMapper base) {
+        return new JacksonCodec(SMILE, "application/x-jackson-smile", derive(base, new SmileFactory()));
+    }
+
+    public static JacksonCodec cbor(ObjectMapper base) {
+        return new JacksonCodec(CBOR, "application/cbor", derive(base, new CBORFactory()));
+    }
+
+    /**
+     * Returns the codec with the given name, which is one of {@link #JSON},
+     * {@link #SMILE} or {@link #CBOR}.
+     *
+     * @param name
+     * @param base
+     * @return
+     */
+    public static JacksonCodec forName(String name, ObjectMapper base) {
+        switch (name.trim().toLowerCase()) {
+            case JSON:
+                return json(base);
+            case SMILE:
+                return smile(base);
+            case CBOR:
+                return cbor(base);
+            default:
+                throw new IllegalArgumentException("Unknown codec \"" + name + "\". Use one of json, smile or cbor.");
+        }
+    }
+
+    /**
+     * Returns all supported codecs, JSON first.
+     *
+     * @param base
+     * @return
+     */
+    public static List<JacksonCodec> all(ObjectMapper base) {
+        return List.of(json(base), smile(base), cbor(base));
+    }
+
+    /**
+     * Creates a mapper for the given format that uses the configuration,
+     * serializers and deserializers of the given mapper.
+     */
+    private static ObjectMapper derive(ObjectMapper base, JsonFactory factory) {
+        var context = base.getDeserializationContext();
+        var derived = context instanceof DefaultDeserializationContext
+                ? new ObjectMapper(factory, null, (DefaultDeserializationContext) context)
+                : new ObjectMapper(factory);
+
+        derived.setSerializerFactory(base.getSerializerFactory());
+        derived.setConfig(base.getSerializationConfig());
+        derived.setConfig(base.getDeserializationConfig());
+        return derived;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String getMediaType() {
+        return mediaType;
+    }
+
+    public ObjectMapper getMapper() {
+        return mapper;
+    }
+
+    @Override
+    public byte[] encode(Object value) throws JsonProcessingException {
+        if (value == null) {
+            return mapper.writeValueAsBytes(null);
+        }
+
+        return writers.computeIfAbsent(value.getClass(), mapper::writerFor).writeValueAsBytes(value);
+    }
+
+    @Override
+    public <T> T decode(byte[] content, JavaType type) throws IOException {
+        return readerFor(type).readValue(content);
+    }
+
+    @Override
+    public ObjectReader readerFor(JavaType type) {
+        return readers.computeIfAbsent(type, mapper::readerFor);
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,267 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2020 Hochschule Esslingen
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE. 
+ */
+package de.hsesslingen.keim.efs.test.adapter.context;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import static org.slf4j.LoggerFactory.getLogger;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.mock.web.MockServletContext;
+import org.springframework.test.web.servlet.MockMvc;
+import static org.springframework.test.web.servlet.setup.MockMvcBuilders.webAppContextSetup;
+import org.springframework.web.context.support.AnnotationConfigWebApplicationContext;
+import org.springframework.web.servlet.config.annotation.EnableWebMvc;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * A minimal web application context for adapter tests, consisting only of the
+ * given component classes, e.g. the booking controller and the beans of the
+ * adapter, plus Spring MVC. There is no Spring Boot auto configuration, no
+ * embedded server and no component scan, so the context starts much faster
+ * than the full application.
+ * <p>
+ * Contexts are cached per JVM by their set of component classes, so all test
+ * classes of an adapter which use the same classes share one context. A
+ * context is started outside the lock of the cache, so contexts with
+ * different classes start in parallel, while threads asking for the same
+ * context wait for it. If it fails to start, it is not retried, and all
+ * later requests for it fail right away. The contexts are closed on
+ * shutdown, when the startup times and the number of reuses are logged.
+ */
+public class AdapterContext {
+
+    private static final Logger logger = getLogger(AdapterContext.class);
+
+    private static final Map<Set<Class<?>>, CompletableFuture<AdapterContext>> cache = new ConcurrentHashMap<>();
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(AdapterContext::closeAll, "efs-context-shutdown"));
+    }
+
+    private final List<Class<?>> componentClasses;
+    private final AnnotationConfigWebApplicationContext context;
+    private final MockMvc mockMvc;
+    private final ObjectMapper mapper;
+    private final long startupNanos;
+    private final AtomicInteger uses = new AtomicInteger();
+
+    private AdapterContext(Set<Class<?>> componentClasses) {
+        this.componentClasses = List.copyOf(componentClasses);
+
+        long start = System.nanoTime();
+
+        context = new AnnotationConfigWebApplicationContext();
+        context.setServletContext(new MockServletContext());
+        context.register(WebMvcSlice.class);
+        context.register(componentClasses.toArray(new Class<?>[0]));
+
+        try {
+            context.refresh();
+        } catch (RuntimeException ex) {
+            context.close();
+            throw ex;
+        }
+
+        mockMvc = webAppContextSetup(context).build();
+        mapper = context.getBeanProvider(ObjectMapper.class).getIfAvailable(() -> Jackson2ObjectMapperBuilder.json().build());
+
+        startupNanos = System.nanoTime() - start;
+
+        logger.info(String.format(Locale.ROOT, "Started adapter context with %s in %.0fms.", getName(), startupNanos / 1_000_000.0));
+    }
+
+    /**
+     * Returns the context with the given component classes, starting it if
+     * there is none yet. The order of the classes does not matter.
+     *
+     * @param componentClasses
+     * @return
+     */
+    public static AdapterContext obtain(Class<?>... componentClasses) {
+        if (componentClasses.length == 0) {
+            throw new IllegalArgumentException("At least one component class is required.");
+        }
+
+        var key = Set.copyOf(Arrays.asList(componentClasses));
+        var started = new CompletableFuture<AdapterContext>();
+        var existing = cache.putIfAbsent(key, started);
+
+        if (existing == null) {
+            // Refreshing the context takes seconds, so it must not happen inside the map.
+            try {
+                started.complete(new AdapterContext(key));
+            } catch (RuntimeException | Error ex) {
+                started.completeExceptionally(ex);
+                throw ex;
+            }
+            existing = started;
+        }
+
+        AdapterContext adapterContext;
+        try {
+            adapterContext = existing.join();
+        } catch (CompletionException ex) {
+            throw new IllegalStateException("Starting the adapter context with " + nameOf(key) + " failed before, it is not retried.", ex.getCause());
+        }
+
+        if (adapterContext.uses.incrementAndGet() > 1) {
+            logger.debug("Reusing adapter context with {}.", adapterContext.getName());
+        }
+
+        return adapterContext;
+    }
+
+    /**
+     * Startup times and reuses of all contexts started so far.
+     *
+     * @return
+     */
+    public static String report() {
+        var sb = new StringBuilder();
+        long totalNanos = 0;
+        int totalUses = 0;
+        var adapterContexts = getStarted();
+
+        for (var adapterContext : adapterContexts) {
+            totalNanos += adapterContext.startupNanos;
+            totalUses += adapterContext.uses.get();
+
+            sb.append(String.format(Locale.ROOT, "%8.0fms %4d uses  %s%n",
+                    adapterContext.startupNanos / 1_000_000.0, adapterContext.uses.get(), adapterContext.getName()));
+        }
+
+        sb.append(String.format(Locale.ROOT, "%d contexts started in %.0fms, used by %d test instances, %d failed to start.",
+                adapterContexts.size(), totalNanos / 1_000_000.0, totalUses, cache.size() - adapterContexts.size()));
+
+        return sb.toString();
+    }
+
+    /**
+     * The contexts which were started successfully. Contexts which are still
+     * starting are left out.
+     */
+    private static List<AdapterContext> getStarted() {
+        var started = new ArrayList<AdapterContext>();
+
+        for (var future : cache.values()) {
+            if (future.isDone() && !future.isCompletedExceptionally()) {
+                started.add(future.join());
+            }
+        }
+
+        return started;
+    }
+
+    private static void closeAll() {
+        if (cache.isEmpty()) {
+            return;
+        }
+
+        logger.info("Adapter contexts:\n{}", report());
+
+        for (var adapterContext : getStarted()) {
+            try {
+                adapterContext.context.close();
+            } catch (RuntimeException ex) {
+                logger.warn("Closing adapter context with {} failed.", adapterContext.getName(), ex);
+            }
+        }
+
+        cache.clear();
+    }
+
+    private String getName() {
+        return nameOf(componentClasses);
+    }
+
+    private static String nameOf(Collection<Class<?>> componentClasses) {
+        return componentClasses.stream()
+                .map(Class::getSimpleName)
+                .sorted()
+                .collect(Collectors.joining(", ", "[", "]"));
+    }
+
+    public AnnotationConfigWebApplicationContext getContext() {
+        return context;
+    }
+
+    public MockMvc getMockMvc() {
+        return mockMvc;
+    }
+
+    public ObjectMapper getMapper() {
+        return mapper;
+    }
+
+    public long getStartupNanos() {
+        return startupNanos;
+    }
+
+    /**
+     * Enables Spring MVC and makes its JSON converter use the
+     * {@link ObjectMapper} bean of the adapter, if there is one, so requests
+     * are handled with the same mapper the harness uses.
+     */
+    @Configuration
+    @EnableWebMvc
+    public static class WebMvcSlice implements WebMvcConfigurer {
+
+        private final ObjectProvider<ObjectMapper> mapper;
+
+        public WebMvcSlice(ObjectProvider<ObjectMapper> mapper) {
+            this.mapper = mapper;
+        }
+
+        @Override
+        public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+            var objectMapper = mapper.getIfAvailable();
+
+            if (objectMapper == null) {
+                return;
+            }
+
+            for (var converter : converters) {
+                if (converter instanceof MappingJackson2HttpMessageConverter) {
+                    ((MappingJackson2HttpMessageConverter) converter).setObjectMapper(objectMapper);
+                }
+            }
+        }
+    }
+}
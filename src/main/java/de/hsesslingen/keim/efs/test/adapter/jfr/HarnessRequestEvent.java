@@ -0,0 +1,98 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2020 Hochschule Esslingen
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE. 
+ */
+package de.hsesslingen.keim.efs.test.adapter.jfr;
+
+import de.hsesslingen.keim.efs.test.adapter.perf.Endpoint;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import org.springframework.test.web.servlet.MvcResult;
+
+/**
+ * A request sent by the harness to the adapter, from handing it to the
+ * transport until the response was there. Shows up in JDK Mission Control on
+ * the same timeline as GC pauses, lock contention and allocations.
+ */
+@Name("de.hsesslingen.keim.efs.HarnessRequest")
+@Label("Harness Request")
+@Description("A request sent by the test harness to the adapter.")
+@Category({"EFS", "Harness"})
+@StackTrace(false)
+public class HarnessRequestEvent extends jdk.jfr.Event {
+
+    @Label("Endpoint")
+    String endpoint;
+
+    @Label("Booking Id")
+    String bookingId;
+
+    @Label("Status")
+    int status;
+
+    @Label("Request Size")
+    @DataAmount
+    long requestBytes;
+
+    @Label("Response Size")
+    @DataAmount
+    long responseBytes;
+
+    @Label("Async")
+    boolean async;
+
+    /**
+     * Takes the fields from the given result and commits the event, if it is
+     * enabled.
+     *
+     * @param result
+     * @param async
+     */
+    public void commit(MvcResult result, boolean async) {
+        end();
+
+        if (!shouldCommit()) {
+            return;
+        }
+
+        var request = result.getRequest();
+        this.endpoint = Endpoint.of(request);
+        this.bookingId = Endpoint.BOOKING_BY_ID.equals(Endpoint.pathOf(request.getRequestURI()))
+                ? request.getRequestURI().substring(Endpoint.BOOKINGS.length() + 1)
+                : null;
+        this.status = result.getResponse().getStatus();
+        this.requestBytes = sizeOf(request.getContentAsByteArray());
+        this.responseBytes = sizeOf(result.getResponse().getContentAsByteArray());
+        this.async = async;
+
+        commit();
+    }
+
+    static long sizeOf(byte[] content) {
+        return content != null ? content.length : 0;
+    }
+
+}
@@ -0,0 +1,121 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2020 Hochschule Esslingen
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE. 
+ */
+package de.hsesslingen.keim.efs.test.adapter.jfr;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.ParseException;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import org.junit.jupiter.api.extension.AfterAllCallback;
+import org.junit.jupiter.api.extension.BeforeAllCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.slf4j.Logger;
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Records a JFR recording per test class and dumps it into the directory
+ * given by the system property {@value #DIRECTORY_PROPERTY}, named after the
+ * class. Does nothing if the property is not set. The recording uses the
+ * settings given by {@value #SETTINGS_PROPERTY}, "profile" by default, so it
+ * contains GC, lock and allocation events along with the events of the
+ * harness.
+ */
+public class JfrRecordingExtension implements BeforeAllCallback, AfterAllCallback {
+
+    private static final Logger logger = getLogger(JfrRecordingExtension.class);
+
+    /**
+     * System property with the directory to dump the recordings into.
+     */
+    public static final String DIRECTORY_PROPERTY = "efs.test.jfr.dir";
+
+    /**
+     * System property with the name of the JFR settings to record with, e.g.
+     * "default" or "profile".
+     */
+    public static final String SETTINGS_PROPERTY = "efs.test.jfr.settings";
+
+    private static final ExtensionContext.Namespace NAMESPACE = ExtensionContext.Namespace.create(JfrRecordingExtension.class);
+
+    @Override
+    public void beforeAll(ExtensionContext context) throws IOException, ParseException {
+        var directory = getDirectory();
+
+        if (directory == null) {
+            return;
+        }
+
+        var configuration = Configuration.getConfiguration(System.getProperty(SETTINGS_PROPERTY, "profile"));
+        var recording = new Recording(configuration);
+        var testClass = context.getRequiredTestClass();
+
+        Files.createDirectories(directory);
+        recording.setName(testClass.getName());
+        recording.setDestination(directory.resolve(testClass.getName() + ".jfr"));
+        recording.start();
+
+        // Closed by JUnit along with the context of the class.
+        context.getStore(NAMESPACE).put(RecordingHolder.class, new RecordingHolder(recording));
+    }
+
+    @Override
+    public void afterAll(ExtensionContext context) {
+        var holder = context.getStore(NAMESPACE).get(RecordingHolder.class, RecordingHolder.class);
+
+        if (holder == null) {
+            return;
+        }
+
+        try {
+            // Writes the recording to its destination.
+            holder.recording.stop();
+            logger.info("JFR recording of {} written to {}.", context.getRequiredTestClass().getName(), holder.recording.getDestination().toAbsolutePath());
+        } catch (IllegalStateException ex) {
+            logger.warn("Could not stop JFR recording of {}.", context.getRequiredTestClass().getName(), ex);
+        }
+    }
+
+    private static Path getDirectory() {
+        var value = System.getProperty(DIRECTORY_PROPERTY);
+        return value != null && !value.isBlank() ? Paths.get(value) : null;
+    }
+
+    private static final class RecordingHolder implements ExtensionContext.Store.CloseableResource {
+
+        private final Recording recording;
+
+        private RecordingHolder(Recording recording) {
+            this.recording = recording;
+        }
+
+        @Override
+        public void close() {
+            recording.close();
+        }
+    }
+
+}
@@ -0,0 +1,103 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2020 Hochschule Esslingen
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE. 
+ */
+package de.hsesslingen.keim.efs.test.adapter.jfr;
+
+import de.hsesslingen.keim.efs.middleware.model.BookingState;
+import de.hsesslingen.keim.efs.test.adapter.perf.Endpoint;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import org.springframework.test.web.servlet.MvcResult;
+
+/**
+ * A step of a booking lifecycle performed by the harness, e.g. creating,
+ * starting or cancelling a booking. Encloses the {@link HarnessRequestEvent}
+ * of the request it sent.
+ */
+@Name("de.hsesslingen.keim.efs.LifecycleStep")
+@Label("Booking Lifecycle Step")
+@Description("A step of a booking lifecycle performed by the test harness.")
+@Category({"EFS", "Harness"})
+@StackTrace(false)
+public class LifecycleStepEvent extends jdk.jfr.Event {
+
+    @Label("Step")
+    String step;
+
+    @Label("Endpoint")
+    String endpoint;
+
+    @Label("Booking Id")
+    String bookingId;
+
+    @Label("From State")
+    String fromState;
+
+    @Label("To State")
+    @Description("The requested state.")
+    String toState;
+
+    @Label("Status")
+    int status;
+
+    @Label("Request Size")
+    @DataAmount
+    long requestBytes;
+
+    @Label("Response Size")
+    @DataAmount
+    long responseBytes;
+
+    /**
+     * Sets the fields and commits the event, if it is enabled.
+     *
+     * @param step
+     * @param bookingId The id of the booking, null if it is being created.
+     * @param from
+     * @param to
+     * @param result
+     */
+    public void commit(String step, String bookingId, BookingState from, BookingState to, MvcResult result) {
+        end();
+
+        if (!shouldCommit()) {
+            return;
+        }
+
+        this.step = step;
+        this.endpoint = Endpoint.of(result.getRequest());
+        this.bookingId = bookingId;
+        this.fromState = from != null ? from.name() : null;
+        this.toState = to != null ? to.name() : null;
+        this.status = result.getResponse().getStatus();
+        this.requestBytes = HarnessRequestEvent.sizeOf(result.getRequest().getContentAsByteArray());
+        this.responseBytes = HarnessRequestEvent.sizeOf(result.getResponse().getContentAsByteArray());
+
+        commit();
+    }
+
+}
@@ -0,0 +1,246 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2020 Hochschule Esslingen
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE. 
+ */
+package de.hsesslingen.keim.efs.test.adapter.perf;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+import static org.junit.jupiter.api.Assertions.fail;
+import org.slf4j.Logger;
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Accounts the bytes allocated by the current thread per key, e.g. per
+ * endpoint and phase of a request. Uses
+ * {@link com.sun.management.ThreadMXBean#getThreadAllocatedBytes(long)}, so
+ * only allocations of the calling thread are seen. With MockMvc, the adapter
+ * runs on the calling thread and its allocations are included. With the HTTP
+ * transport, only the client side is measured.
+ * <p>
+ * Averages per key can be saved as baseline and later runs can be checked
+ * against it.
+ */
+public class AllocationMeter {
+
+    private static final Logger logger = getLogger(AllocationMeter.class);
+
+    private static final com.sun.management.ThreadMXBean threadBean = initThreadBean();
+
+    private static final AllocationMeter shared = new AllocationMeter();
+
+    private final ConcurrentMap<String, Stats> stats = new ConcurrentHashMap<>();
+
+    private static com.sun.management.ThreadMXBean initThreadBean() {
+        var bean = ManagementFactory.getThreadMXBean();
+
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            var sunBean = (com.sun.management.ThreadMXBean) bean;
+
+            if (sunBean.isThreadAllocatedMemorySupported()) {
+                if (!sunBean.isThreadAllocatedMemoryEnabled()) {
+                    sunBean.setThreadAllocatedMemoryEnabled(true);
+                }
+                return sunBean;
+            }
+        }
+
+        logger.warn("Thread allocation accounting is not supported by this JVM. Allocations will not be measured.");
+        return null;
+    }
+
+    /**
+     * The instance used by the harness by default.
+     *
+     * @return
+     */
+    public static AllocationMeter shared() {
+        return shared;
+    }
+
+    public static boolean isSupported() {
+        return threadBean != null;
+    }
+
+    /**
+     * Returns the number of bytes allocated by the current thread so far, or
+     * 0 if not supported.
+     *
+     * @return
+     */
+    public static long currentThreadAllocatedBytes() {
+        return threadBean != null ? threadBean.getThreadAllocatedBytes(Thread.currentThread().getId()) : 0;
+    }
+
+    /**
+     * Records the bytes allocated by the current thread since
+     * {@code startBytes}, which must have been obtained from
+     * {@link #currentThreadAllocatedBytes()} on the same thread.
+     *
+     * @param key
+     * @param startBytes
+     */
+    public void recordSince(String key, long startBytes) {
+        record(key, currentThreadAllocatedBytes() - startBytes);
+    }
+
+    /**
+     * Records the given number of allocated bytes. Use this if building the
+     * key allocates, so the delta can be taken right after the measured code.
+     *
+     * @param key
+     * @param bytes
+     */
+    public void record(String key, long bytes) {
+        if (threadBean != null) {
+            stats.computeIfAbsent(key, k -> new Stats()).add(bytes);
+        }
+    }
+
+    /**
+     * Returns the average allocated bytes per recording, by key.
+     *
+     * @return
+     */
+    public Map<String, Long> getAverages() {
+        var averages = new TreeMap<String, Long>();
+        stats.forEach((key, s) -> averages.put(key, s.average()));
+        return averages;
+    }
+
+    public void reset() {
+        stats.clear();
+    }
+
+    public String report() {
+        var sb = new StringBuilder();
+        stats.entrySet().stream().sorted(Map.Entry.comparingByKey()).forEach(e -> sb.append(String.format(
+                "%-48s count=%d avg=%dB%n", e.getKey(), e.getValue().count.sum(), e.getValue().average())));
+        return sb.toString();
+    }
+
+    public void saveBaseline(Path file) throws IOException {
+        var properties = new Properties();
+        getAverages().forEach((key, average) -> properties.setProperty(key, Long.toString(average)));
+
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            properties.store(writer, "Average allocated bytes per request phase");
+        }
+    }
+
+    public static Map<String, Long> loadBaseline(Path file) throws IOException {
+        var properties = new Properties();
+
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        }
+
+        var baseline = new TreeMap<String, Long>();
+        properties.stringPropertyNames().forEach(key -> baseline.put(key, Long.parseLong(properties.getProperty(key))));
+        return baseline;
+    }
+
+    /**
+     * Drops the recordings of all keys which match the given predicate, e.g.
+     * those which depend on external data and vary from run to run.
+     *
+     * @param key
+     */
+    public void removeIf(Predicate<String> key) {
+        stats.keySet().removeIf(key);
+    }
+
+    /**
+     * Compares the averages with the baseline in the given file. If the file
+     * does not exist yet, it is created from the current averages. Fails if
+     * any average exceeds its baseline by more than the given tolerance, e.g.
+     * 0.2 for 20%.
+     *
+     * @param file
+     * @param tolerance
+     * @throws IOException
+     */
+    public void assertWithinBaseline(Path file, double tolerance) throws IOException {
+        if (!isSupported()) {
+            return;
+        }
+
+        if (!Files.exists(file)) {
+            saveBaseline(file);
+            logger.info("Saved allocation baseline to {}.", file.toAbsolutePath());
+            return;
+        }
+
+        var baseline = loadBaseline(file);
+        List<String> regressions = new ArrayList<>();
+
+        getAverages().forEach((key, average) -> {
+            Long expected = baseline.get(key);
+
+            if (expected != null && average > expected * (1 + tolerance)) {
+                regressions.add(String.format(Locale.ROOT, "%s: %dB instead of %dB (+%.1f%%)",
+                        key, average, expected, 100.0 * (average - expected) / Math.max(expected, 1)));
+            }
+        });
+
+        if (!regressions.isEmpty()) {
+            fail("Allocations per request exceed the baseline in " + file + " by more than " + Math.round(tolerance * 100) + "%:\n  "
+                    + String.join("\n  ", regressions));
+        }
+    }
+
+    private static class Stats {
+
+        private final LongAdder count = new LongAdder();
+        private final LongAdder bytes = new LongAdder();
+
+        private void add(long allocated) {
+            count.increment();
+            bytes.add(allocated);
+        }
+
+        private long average() {
+            long n = count.sum();
+            return n > 0 ? bytes.sum() / n : 0;
+        }
+    }
+
+}
@@ -0,0 +1,85 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2020 Hochschule Esslingen
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE. 
+ */
+package de.hsesslingen.keim.efs.test.adapter.perf;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A period of constant arrival rate in an open-loop load run.
+ */
+public final class ArrivalStage {
+
+    private final double ratePerSecond;
+    private final Duration duration;
+
+    public ArrivalStage(double ratePerSecond, Duration duration) {
+        if (ratePerSecond <= 0) {
+            throw new IllegalArgumentException("The arrival rate must be positive.");
+        }
+        this.ratePerSecond = ratePerSecond;
+        this.duration = duration;
+    }
+
+    /**
+     * Creates one stage of the given duration per rate.
+     *
+     * @param duration
+     * @param ratesPerSecond
+     * @return
+     */
+    public static List<ArrivalStage> ramp(Duration duration, double... ratesPerSecond) {
+        var stages = new ArrayList<ArrivalStage>();
+
+        for (double rate : ratesPerSecond) {
+            stages.add(new ArrivalStage(rate, duration));
+        }
+
+        return stages;
+    }
+
+    public double getRatePerSecond() {
+        return ratePerSecond;
+    }
+
+    public Duration getDuration() {
+        return duration;
+    }
+
+    /**
+     * The number of requests sent during this stage.
+     *
+     * @return
+     */
+    public int getRequests() {
+        return (int) Math.max(1, Math.round(ratePerSecond * duration.toNanos() / 1_000_000_000.0));
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%.1f/s for %ds", ratePerSecond, duration.getSeconds());
+    }
+
+}
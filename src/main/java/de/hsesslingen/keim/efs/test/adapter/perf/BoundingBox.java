@@ -0,0 +1,121 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2020 Hochschule Esslingen
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE. 
+ */
+package de.hsesslingen.keim.efs.test.adapter.perf;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * A rectangle of coordinates, used to generate positions for options
+ * requests. Positions are formatted as {@code "lat,lon"}, the way the options
+ * endpoint expects them.
+ */
+public final class BoundingBox {
+
+    private static final double METERS_PER_DEGREE_LAT = 111_320;
+
+    private final double minLat;
+    private final double minLon;
+    private final double maxLat;
+    private final double maxLon;
+
+    public BoundingBox(double minLat, double minLon, double maxLat, double maxLon) {
+        this.minLat = Math.min(minLat, maxLat);
+        this.minLon = Math.min(minLon, maxLon);
+        this.maxLat = Math.max(minLat, maxLat);
+        this.maxLon = Math.max(minLon, maxLon);
+    }
+
+    /**
+     * Returns a box which extends the given distance from the given position
+     * in every direction.
+     *
+     * @param latLon A position like {@code "48.7397,9.3104"}.
+     * @param meters
+     * @return
+     */
+    public static BoundingBox around(String latLon, double meters) {
+        var parts = latLon.split(",");
+        double lat = Double.parseDouble(parts[0].trim());
+        double lon = Double.parseDouble(parts[1].trim());
+
+        double dLat = meters / METERS_PER_DEGREE_LAT;
+        double dLon = meters / (METERS_PER_DEGREE_LAT * Math.max(Math.cos(Math.toRadians(lat)), 0.01));
+
+        return new BoundingBox(lat - dLat, lon - dLon, lat + dLat, lon + dLon);
+    }
+
+    /**
+     * Returns the centers of the cells of a grid with the given number of rows
+     * and columns laid over this box.
+     *
+     * @param rows
+     * @param columns
+     * @return
+     */
+    public List<String> grid(int rows, int columns) {
+        var points = new ArrayList<String>(rows * columns);
+
+        for (int r = 0; r < rows; ++r) {
+            for (int c = 0; c < columns; ++c) {
+                double lat = minLat + (maxLat - minLat) * (r + 0.5) / rows;
+                double lon = minLon + (maxLon - minLon) * (c + 0.5) / columns;
+                points.add(format(lat, lon));
+            }
+        }
+
+        return points;
+    }
+
+    /**
+     * Returns uniformly distributed random positions within this box.
+     *
+     * @param random
+     * @param count
+     * @return
+     */
+    public List<String> sample(Random random, int count) {
+        var points = new ArrayList<String>(count);
+
+        for (int i = 0; i < count; ++i) {
+            points.add(format(
+                    minLat + random.nextDouble() * (maxLat - minLat),
+                    minLon + random.nextDouble() * (maxLon - minLon)));
+        }
+
+        return points;
+    }
+
+    private static String format(double lat, double lon) {
+        return String.format(Locale.ROOT, "%.6f,%.6f", lat, lon);
+    }
+
+    @Override
+    public String toString() {
+        return "BoundingBox{" + format(minLat, minLon) + " - " + format(maxLat, maxLon) + '}';
+    }
+
+}
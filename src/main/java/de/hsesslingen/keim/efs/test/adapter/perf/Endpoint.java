@@ -0,0 +1,71 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2020 Hochschule Esslingen
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE. 
+ */
+package de.hsesslingen.keim.efs.test.adapter.perf;
+
+import java.util.regex.Pattern;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+/**
+ * Derives a stable name for the endpoint a request was sent to, e.g.
+ * {@code GET /api/bookings/{id}}. Booking ids are replaced by a placeholder,
+ * so all requests to the same endpoint share one name.
+ */
+public final class Endpoint {
+
+    public static final String OPTIONS = "/api/bookings/options";
+    public static final String BOOKINGS = "/api/bookings";
+    public static final String BOOKING_BY_ID = "/api/bookings/{id}";
+
+    private static final Pattern BOOKING_BY_ID_PATTERN = Pattern.compile("^/api/bookings/[^/]+$");
+
+    private Endpoint() {
+    }
+
+    /**
+     * Returns the path of the endpoint with path variables replaced.
+     *
+     * @param requestUri
+     * @return
+     */
+    public static String pathOf(String requestUri) {
+        if (OPTIONS.equals(requestUri) || BOOKINGS.equals(requestUri)) {
+            return requestUri;
+        }
+        if (BOOKING_BY_ID_PATTERN.matcher(requestUri).matches()) {
+            return BOOKING_BY_ID;
+        }
+        return requestUri;
+    }
+
+    /**
+     * Returns method and path of the endpoint, separated by a space.
+     *
+     * @param request
+     * @return
+     */
+    public static String of(MockHttpServletRequest request) {
+        return request.getMethod() + " " + pathOf(request.getRequestURI());
+    }
+
+}
@@ -0,0 +1,129 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2020 Hochschule Esslingen
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE. 
+ */
+package de.hsesslingen.keim.efs.test.adapter.perf;
+
+import de.hsesslingen.keim.efs.middleware.model.Booking;
+import de.hsesslingen.keim.efs.test.adapter.AdapterTestBase;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Describes the environment of a performance run. The fingerprint covers
+ * what makes runs comparable, i.e. hardware, operating system, JVM and its
+ * options. The versions of middleware-core and the harness are recorded
+ * along with it but are not part of the fingerprint, so runs before and
+ * after an upgrade are compared with each other.
+ */
+public final class EnvironmentFingerprint {
+
+    private EnvironmentFingerprint() {
+    }
+
+    /**
+     * The entries which make up the fingerprint.
+     *
+     * @return
+     */
+    public static Map<String, String> machine() {
+        var runtime = Runtime.getRuntime();
+        var entries = new TreeMap<String, String>();
+
+        entries.put("os.name", System.getProperty("os.name"));
+        entries.put("os.arch", System.getProperty("os.arch"));
+        entries.put("cpus", Integer.toString(runtime.availableProcessors()));
+        entries.put("java.version", System.getProperty("java.version"));
+        entries.put("java.vm.name", System.getProperty("java.vm.name"));
+        entries.put("heap.max.mb", Long.toString(runtime.maxMemory() / (1024 * 1024)));
+        entries.put("jvm.options", jvmOptions());
+
+        return entries;
+    }
+
+    /**
+     * The -X and -XX options of the JVM, like heap size and GC. Other
+     * arguments are left out, as they often contain paths or ports which
+     * differ from run to run.
+     */
+    private static String jvmOptions() {
+        return ManagementFactory.getRuntimeMXBean().getInputArguments().stream()
+                .filter(arg -> arg.startsWith("-X"))
+                .sorted()
+                .collect(Collectors.joining(" "));
+    }
+
+    /**
+     * The entries of {@link #machine()} plus the versions of the components
+     * involved, as far as they are known from the jar manifests.
+     *
+     * @return
+     */
+    public static Map<String, String> current() {
+        var entries = machine();
+        entries.put("version.middleware-core", versionOf(Booking.class));
+        entries.put("version.middleware-test", versionOf(AdapterTestBase.class));
+        return entries;
+    }
+
+    /**
+     * The version in the manifest of the jar containing the given class, or
+     * "unknown", e.g. when running from an IDE.
+     *
+     * @param clazz
+     * @return
+     */
+    public static String versionOf(Class<?> clazz) {
+        var pkg = clazz.getPackage();
+        var version = pkg != null ? pkg.getImplementationVersion() : null;
+        return version != null ? version : "unknown";
+    }
+
+    /**
+     * A short hash of {@link #machine()}.
+     *
+     * @return
+     */
+    public static String hash() {
+        try {
+            var digest = MessageDigest.getInstance("SHA-256");
+            machine().forEach((key, value) -> digest.update((key + "=" + value + "\n").getBytes(StandardCharsets.UTF_8)));
+
+            var sb = new StringBuilder();
+            byte[] bytes = digest.digest();
+
+            for (int i = 0; i < 6; ++i) {
+                sb.append(String.format("%02x", bytes[i]));
+            }
+
+            return sb.toString();
+        } catch (NoSuchAlgorithmException ex) {
+            // Every JVM has to support SHA-256.
+            throw new IllegalStateException(ex);
+        }
+    }
+}
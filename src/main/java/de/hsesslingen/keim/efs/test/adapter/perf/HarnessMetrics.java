@@ -0,0 +1,172 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2020 Hochschule Esslingen
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE. 
+ */
+package de.hsesslingen.keim.efs.test.adapter.perf;
+
+import de.hsesslingen.keim.efs.test.adapter.AdapterTestBase;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import org.slf4j.Logger;
+import static org.slf4j.LoggerFactory.getLogger;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.web.servlet.MvcResult;
+
+/**
+ * Micrometer instrumentation of the request pipeline of the harness. The time
+ * spent serializing request bodies, dispatching requests to the adapter and
+ * deserializing response bodies is recorded in separate timers, so a slowdown
+ * can be attributed either to the adapter or to the JSON layer.
+ * <p>
+ * Dispatch and deserialization are tagged with endpoint, HTTP method, status
+ * class and whether credentials were sent. Serialization is tagged with the
+ * serialized type, as the endpoint is not known at that time.
+ */
+public class HarnessMetrics {
+
+    private static final Logger logger = getLogger(HarnessMetrics.class);
+
+    public static final String SERIALIZATION = "efs.harness.serialization";
+    public static final String DISPATCH = "efs.harness.dispatch";
+    public static final String DESERIALIZATION = "efs.harness.deserialization";
+    public static final String REQUESTS = "efs.harness.requests";
+
+    /**
+     * System property with the file the shared metrics are written to when
+     * the JVM exits. Defaults to {@value #DEFAULT_EXPORT_FILE}. Set it to an
+     * empty value to disable the export.
+     */
+    public static final String EXPORT_FILE_PROPERTY = "efs.test.metrics.file";
+    public static final String DEFAULT_EXPORT_FILE = "target/efs-harness-metrics.prom";
+
+    private static volatile HarnessMetrics shared;
+
+    private final MeterRegistry registry;
+
+    public HarnessMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * Returns the instance that is used by the harness by default. It is
+     * backed by a Prometheus registry, which is exported to a text file when
+     * the JVM exits.
+     *
+     * @return
+     */
+    public static HarnessMetrics shared() {
+        if (shared == null) {
+            synchronized (HarnessMetrics.class) {
+                if (shared == null) {
+                    shared = new HarnessMetrics(new PrometheusMeterRegistry(PrometheusConfig.DEFAULT));
+                    registerExportOnShutdown(shared);
+                }
+            }
+        }
+
+        return shared;
+    }
+
+    private static void registerExportOnShutdown(HarnessMetrics metrics) {
+        var file = System.getProperty(EXPORT_FILE_PROPERTY, DEFAULT_EXPORT_FILE);
+
+        if (file.isBlank()) {
+            return;
+        }
+
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                metrics.exportTo(Paths.get(file));
+            } catch (IOException ex) {
+                logger.warn("Could not export harness metrics to {}.", file, ex);
+            }
+        }, "efs-harness-metrics-export"));
+    }
+
+    public MeterRegistry getRegistry() {
+        return registry;
+    }
+
+    public void recordSerialization(Class<?> type, long nanos) {
+        registry.timer(SERIALIZATION, Tags.of("type", type.getSimpleName())).record(nanos, NANOSECONDS);
+    }
+
+    public void recordDispatch(MvcResult result, long nanos) {
+        var tags = tagsOf(result);
+        registry.timer(DISPATCH, tags).record(nanos, NANOSECONDS);
+        registry.counter(REQUESTS, tags).increment();
+    }
+
+    public void recordDeserialization(MvcResult result, Class<?> type, long nanos) {
+        registry.timer(DESERIALIZATION, tagsOf(result).and("type", type.getSimpleName())).record(nanos, NANOSECONDS);
+    }
+
+    private static Tags tagsOf(MvcResult result) {
+        MockHttpServletRequest request = result.getRequest();
+
+        return Tags.of(
+                "endpoint", Endpoint.pathOf(request.getRequestURI()),
+                "method", request.getMethod(),
+                "status", (result.getResponse().getStatus() / 100) + "xx",
+                "credentials", String.valueOf(request.getHeader(AdapterTestBase.CREDENTIALS_HEADER_KEY) != null));
+    }
+
+    /**
+     * Renders all meters in the Prometheus text format, if the registry is a
+     * Prometheus registry, or as one line per measurement otherwise.
+     *
+     * @return
+     */
+    public String scrape() {
+        if (registry instanceof PrometheusMeterRegistry) {
+            return ((PrometheusMeterRegistry) registry).scrape();
+        }
+
+        var sb = new StringBuilder();
+
+        registry.getMeters().forEach(meter -> meter.measure().forEach(m -> {
+            sb.append(meter.getId().getName());
+            meter.getId().getTags().forEach(t -> sb.append(' ').append(t.getKey()).append('=').append(t.getValue()));
+            sb.append(' ').append(m.getStatistic()).append(' ').append(m.getValue()).append('\n');
+        }));
+
+        return sb.toString();
+    }
+
+    public void exportTo(Path file) throws IOException {
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+
+        Files.writeString(file, scrape(), StandardCharsets.UTF_8);
+        logger.info("Exported harness metrics to {}.", file.toAbsolutePath());
+    }
+
+}
@@ -0,0 +1,148 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2020 Hochschule Esslingen
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE. 
+ */
+package de.hsesslingen.keim.efs.test.adapter.perf;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Separates the time spent by the harness from the time spent by the adapter
+ * when dispatching a {@link RequestCorpus}, per endpoint. Harness time is
+ * measured as CPU time of the harness thread: building the request the usual
+ * way, preparing the request from the corpus, and parsing the response.
+ * Adapter time is the wall clock time of the dispatch. With MockMvc, the
+ * latter includes the dispatcher servlet, as the adapter runs on the harness
+ * thread. As CPU and wall clock time don't add up, they are reported side by
+ * side rather than as a ratio.
+ */
+public class HarnessOverheadReport {
+
+    public static final String BUILD = "build";
+    public static final String PREPARE = "prepare";
+    public static final String DISPATCH = "dispatch";
+    public static final String PARSE = "parse";
+
+    private final Map<String, LatencyRecorder> endpoints = new TreeMap<>();
+
+    /**
+     * Records the phases of one request.
+     *
+     * @param endpoint
+     * @param buildCpuNanos CPU time of building the request the usual way.
+     * @param prepareCpuNanos CPU time of preparing the request from the corpus.
+     * @param dispatchNanos Wall clock time of the dispatch.
+     */
+    public synchronized void record(String endpoint, long buildCpuNanos, long prepareCpuNanos, long dispatchNanos) {
+        var recorder = recorderOf(endpoint);
+        recorder.record(BUILD, buildCpuNanos);
+        recorder.record(PREPARE, prepareCpuNanos);
+        recorder.record(DISPATCH, dispatchNanos);
+    }
+
+    /**
+     * Records the CPU time of parsing a response, which is done after all
+     * requests were dispatched.
+     *
+     * @param endpoint
+     * @param parseCpuNanos
+     */
+    public synchronized void recordParse(String endpoint, long parseCpuNanos) {
+        recorderOf(endpoint).record(PARSE, parseCpuNanos);
+    }
+
+    private LatencyRecorder recorderOf(String endpoint) {
+        return endpoints.computeIfAbsent(endpoint, e -> new LatencyRecorder());
+    }
+
+    public synchronized List<String> getEndpoints() {
+        return List.copyOf(endpoints.keySet());
+    }
+
+    /**
+     * Returns the summary of the given phase of the given endpoint, or null if
+     * nothing was recorded.
+     *
+     * @param endpoint
+     * @param phase
+     * @return
+     */
+    public synchronized LatencySummary getSummary(String endpoint, String phase) {
+        var recorder = endpoints.get(endpoint);
+        return recorder != null ? recorder.getSummary(phase) : null;
+    }
+
+    /**
+     * The mean CPU time in nanoseconds the harness spends per request on the
+     * usual path: building the request and parsing the response.
+     *
+     * @param endpoint
+     * @return
+     */
+    public synchronized double getHarnessCpuNanos(String endpoint) {
+        return meanOf(endpoint, BUILD) + meanOf(endpoint, PARSE);
+    }
+
+    /**
+     * The mean wall clock time in nanoseconds of dispatching a request.
+     *
+     * @param endpoint
+     * @return
+     */
+    public synchronized double getAdapterWallNanos(String endpoint) {
+        return meanOf(endpoint, DISPATCH);
+    }
+
+    private double meanOf(String endpoint, String phase) {
+        var summary = getSummary(endpoint, phase);
+        return summary != null ? summary.getMean() : 0;
+    }
+
+    public synchronized String report() {
+        var sb = new StringBuilder();
+        sb.append(String.format("%-28s %8s %10s %10s %10s %10s %10s %12s %12s%n",
+                "endpoint", "count", "build", "prepare", "adapter", "adapter99", "parse", "harness cpu", "adapter wall"));
+
+        for (String endpoint : endpoints.keySet()) {
+            var dispatch = getSummary(endpoint, DISPATCH);
+
+            sb.append(String.format(Locale.ROOT, "%-28s %8d %8.3fms %8.3fms %8.3fms %8.3fms %8.3fms %10.3fms %10.3fms%n",
+                    endpoint, dispatch != null ? dispatch.getCount() : 0,
+                    meanOf(endpoint, BUILD) / 1_000_000.0, meanOf(endpoint, PREPARE) / 1_000_000.0,
+                    meanOf(endpoint, DISPATCH) / 1_000_000.0, dispatch != null ? dispatch.getP99() / 1_000_000.0 : 0,
+                    meanOf(endpoint, PARSE) / 1_000_000.0,
+                    getHarnessCpuNanos(endpoint) / 1_000_000.0, getAdapterWallNanos(endpoint) / 1_000_000.0));
+        }
+
+        sb.append("Times are means, harness cpu is build and parse CPU time of the harness thread, adapter wall is wall clock time of the dispatch.");
+        return sb.toString();
+    }
+
+    @Override
+    public String toString() {
+        return report();
+    }
+
+}
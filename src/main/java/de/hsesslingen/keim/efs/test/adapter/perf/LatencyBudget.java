@@ -0,0 +1,113 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2020 Hochschule Esslingen
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE. 
+ */
+package de.hsesslingen.keim.efs.test.adapter.perf;
+
+import java.time.Duration;
+
+/**
+ * Upper bounds for the 50th, 95th and 99th latency percentile of an endpoint.
+ * Bounds which are not set are not checked. Instances are immutable, each
+ * setter returns a new budget.
+ * <pre>
+ * LatencyBudget.p50(ofMillis(100)).p95(ofMillis(300)).p99(ofSeconds(1))
+ * </pre>
+ */
+public final class LatencyBudget {
+
+    private final Duration p50;
+    private final Duration p95;
+    private final Duration p99;
+
+    private LatencyBudget(Duration p50, Duration p95, Duration p99) {
+        this.p50 = p50;
+        this.p95 = p95;
+        this.p99 = p99;
+    }
+
+    public static LatencyBudget none() {
+        return new LatencyBudget(null, null, null);
+    }
+
+    public static LatencyBudget p50(Duration max) {
+        return none().withP50(max);
+    }
+
+    public static LatencyBudget p95(Duration max) {
+        return none().withP95(max);
+    }
+
+    public static LatencyBudget p99(Duration max) {
+        return none().withP99(max);
+    }
+
+    public LatencyBudget withP50(Duration max) {
+        return new LatencyBudget(max, p95, p99);
+    }
+
+    public LatencyBudget withP95(Duration max) {
+        return new LatencyBudget(p50, max, p99);
+    }
+
+    public LatencyBudget withP99(Duration max) {
+        return new LatencyBudget(p50, p95, max);
+    }
+
+    public Duration getP50() {
+        return p50;
+    }
+
+    public Duration getP95() {
+        return p95;
+    }
+
+    public Duration getP99() {
+        return p99;
+    }
+
+    /**
+     * Checks the given summary against this budget.
+     *
+     * @param summary
+     * @return true if none of the bounds is exceeded.
+     */
+    public boolean isMetBy(LatencySummary summary) {
+        return within(summary.getP50(), p50)
+                && within(summary.getP95(), p95)
+                && within(summary.getP99(), p99);
+    }
+
+    private static boolean within(long nanos, Duration max) {
+        return max == null || nanos <= max.toNanos();
+    }
+
+    @Override
+    public String toString() {
+        return "p50<=" + format(p50) + " p95<=" + format(p95) + " p99<=" + format(p99);
+    }
+
+    private static String format(Duration d) {
+        return d != null ? d.toMillis() + "ms" : "-";
+    }
+
+}
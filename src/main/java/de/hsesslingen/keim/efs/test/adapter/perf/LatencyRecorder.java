@@ -0,0 +1,108 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2020 Hochschule Esslingen
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE. 
+ */
+package de.hsesslingen.keim.efs.test.adapter.perf;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+/**
+ * Thread safe collection of latency histograms, one per key. Values are
+ * recorded in nanoseconds and kept in HdrHistograms with three significant
+ * digits.
+ */
+public class LatencyRecorder {
+
+    private static final int SIGNIFICANT_DIGITS = 3;
+
+    private final ConcurrentMap<String, Histogram> histograms = new ConcurrentHashMap<>();
+
+    public void record(String key, long nanos) {
+        histograms.computeIfAbsent(key, k -> new ConcurrentHistogram(SIGNIFICANT_DIGITS))
+                .recordValue(Math.max(0, nanos));
+    }
+
+    /**
+     * Records the time passed since {@code startNanos}, which is expected to
+     * be a value obtained from {@link System#nanoTime()}.
+     *
+     * @param key
+     * @param startNanos
+     */
+    public void recordSince(String key, long startNanos) {
+        record(key, System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Returns a copy of the histogram recorded for the given key or null if
+     * nothing was recorded for it.
+     *
+     * @param key
+     * @return
+     */
+    public Histogram getHistogram(String key) {
+        var histogram = histograms.get(key);
+        return histogram != null ? histogram.copy() : null;
+    }
+
+    public LatencySummary getSummary(String key) {
+        var histogram = histograms.get(key);
+        return histogram != null ? LatencySummary.of(histogram) : null;
+    }
+
+    /**
+     * Returns summaries of all recorded keys, sorted by key.
+     *
+     * @return
+     */
+    public Map<String, LatencySummary> getSummaries() {
+        var summaries = new TreeMap<String, LatencySummary>();
+        histograms.forEach((key, histogram) -> summaries.put(key, LatencySummary.of(histogram)));
+        return summaries;
+    }
+
+    public void reset() {
+        histograms.clear();
+    }
+
+    /**
+     * Renders a table with one line per key.
+     *
+     * @return
+     */
+    public String report() {
+        var sb = new StringBuilder();
+        getSummaries().forEach((key, summary) -> sb.append(String.format("%-24s %s%n", key, summary)));
+        return sb.toString();
+    }
+
+    @Override
+    public String toString() {
+        return report();
+    }
+
+}
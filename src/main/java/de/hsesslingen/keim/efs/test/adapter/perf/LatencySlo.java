@@ -0,0 +1,152 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2020 Hochschule Esslingen
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE. 
+ */
+package de.hsesslingen.keim.efs.test.adapter.perf;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import static org.junit.jupiter.api.Assertions.fail;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultMatcher;
+
+/**
+ * Collects request latencies per endpoint and checks them against latency
+ * budgets. Budgets are declared per endpoint path, e.g.
+ * {@code /api/bookings/options}, or per method and path, e.g.
+ * {@code GET /api/bookings/{id}}. The latter takes precedence.
+ * <p>
+ * Latencies are fed in by {@link #recorder()}, which is a
+ * {@link ResultMatcher} that can be passed to any of the request methods of
+ * the harness. After many runs, {@link #assertMet()} fails the test with a
+ * percentile breakdown if any of the budgets is broken.
+ */
+public class LatencySlo {
+
+    /**
+     * The request attribute under which the harness stores the latency of a
+     * request in nanoseconds.
+     */
+    public static final String LATENCY_ATTRIBUTE = LatencySlo.class.getName() + ".LATENCY";
+
+    private final Map<String, LatencyBudget> budgets = new ConcurrentHashMap<>();
+    private final LatencyRecorder latencies = new LatencyRecorder();
+
+    public LatencySlo budget(String endpoint, LatencyBudget budget) {
+        budgets.put(endpoint, budget);
+        return this;
+    }
+
+    /**
+     * Returns a matcher which records the latency of the matched result.
+     *
+     * @return
+     */
+    public ResultMatcher recorder() {
+        return this::record;
+    }
+
+    /**
+     * Records the latency of the given result, if the harness measured one.
+     *
+     * @param result
+     */
+    public void record(MvcResult result) {
+        Object latency = result.getRequest().getAttribute(LATENCY_ATTRIBUTE);
+
+        if (latency instanceof Long) {
+            latencies.record(Endpoint.of(result.getRequest()), (Long) latency);
+        }
+    }
+
+    /**
+     * Returns a matcher which fails if a single request took longer than the
+     * given duration.
+     *
+     * @param max
+     * @return
+     */
+    public static ResultMatcher maxLatency(Duration max) {
+        return result -> {
+            Object latency = result.getRequest().getAttribute(LATENCY_ATTRIBUTE);
+
+            if (latency instanceof Long && (Long) latency > max.toNanos()) {
+                fail(Endpoint.of(result.getRequest()) + " took " + ((Long) latency / 1_000_000) + "ms, more than the allowed " + max.toMillis() + "ms.");
+            }
+        };
+    }
+
+    public LatencyRecorder getLatencies() {
+        return latencies;
+    }
+
+    private LatencyBudget budgetFor(String endpoint) {
+        var budget = budgets.get(endpoint);
+
+        if (budget == null) {
+            // Try the path only, without the method.
+            budget = budgets.get(endpoint.substring(endpoint.indexOf(' ') + 1));
+        }
+
+        return budget;
+    }
+
+    /**
+     * Returns a table of all recorded endpoints with their percentiles and
+     * budgets.
+     *
+     * @return
+     */
+    public String report() {
+        var sb = new StringBuilder();
+
+        latencies.getSummaries().forEach((endpoint, summary) -> {
+            var budget = budgetFor(endpoint);
+            var verdict = budget == null ? "no budget" : budget.isMetBy(summary) ? "ok" : "BROKEN";
+
+            sb.append(String.format("%-32s %-9s %s%n", endpoint, verdict, summary));
+
+            if (budget != null) {
+                sb.append(String.format("%-32s %-9s %s%n", "", "budget", budget));
+            }
+        });
+
+        return sb.toString();
+    }
+
+    /**
+     * Fails if the recorded latencies of any endpoint exceed its budget.
+     * Endpoints without budget or without recorded requests are ignored.
+     */
+    public void assertMet() {
+        boolean broken = latencies.getSummaries().entrySet().stream().anyMatch(e -> {
+            var budget = budgetFor(e.getKey());
+            return budget != null && !budget.isMetBy(e.getValue());
+        });
+
+        if (broken) {
+            fail("Latency budget broken:\n" + report());
+        }
+    }
+
+}
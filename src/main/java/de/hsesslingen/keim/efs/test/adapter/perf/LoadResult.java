@@ -0,0 +1,95 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2020 Hochschule Esslingen
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE. 
+ */
+package de.hsesslingen.keim.efs.test.adapter.perf;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Outcome of a load run executed by {@link LoadRunner}.
+ */
+public class LoadResult {
+
+    private final int iterations;
+    private final int concurrency;
+    private final int failures;
+    private final List<Throwable> sampleFailures;
+    private final long elapsedNanos;
+    private final LatencyRecorder latencies;
+
+    public LoadResult(int iterations, int concurrency, int failures, List<Throwable> sampleFailures, long elapsedNanos, LatencyRecorder latencies) {
+        this.iterations = iterations;
+        this.concurrency = concurrency;
+        this.failures = failures;
+        this.sampleFailures = Collections.unmodifiableList(sampleFailures);
+        this.elapsedNanos = elapsedNanos;
+        this.latencies = latencies;
+    }
+
+    public int getIterations() {
+        return iterations;
+    }
+
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    public int getFailures() {
+        return failures;
+    }
+
+    /**
+     * Returns the first few failures that occurred during the run. Use
+     * {@link #getFailures()} for the total count.
+     *
+     * @return
+     */
+    public List<Throwable> getSampleFailures() {
+        return sampleFailures;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public LatencyRecorder getLatencies() {
+        return latencies;
+    }
+
+    /**
+     * Completed iterations per second, including failed ones.
+     *
+     * @return
+     */
+    public double getThroughput() {
+        return elapsedNanos > 0 ? iterations / (elapsedNanos / 1_000_000_000.0) : 0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d iterations on %d workers in %.3fs (%.1f/s), %d failed%n%s",
+                iterations, concurrency, elapsedNanos / 1_000_000_000.0, getThroughput(), failures, latencies.report());
+    }
+
+}
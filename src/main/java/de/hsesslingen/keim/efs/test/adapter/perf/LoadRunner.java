@@ -0,0 +1,156 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2020 Hochschule Esslingen
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE. 
+ */
+package de.hsesslingen.keim.efs.test.adapter.perf;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Executes a {@link Workload} a fixed number of times on a pool of worker
+ * threads and records the latency of every iteration.
+ */
+public class LoadRunner {
+
+    private static final Logger logger = getLogger(LoadRunner.class);
+    private static final int MAX_SAMPLE_FAILURES = 10;
+
+    /**
+     * The key under which the latency of whole iterations is recorded.
+     */
+    public static final String ITERATION = "iteration";
+
+    private final int concurrency;
+    private final long timeoutMillis;
+    private final LatencyRecorder latencies;
+
+    /**
+     * @param concurrency Number of worker threads.
+     * @param timeoutMillis Upper bound for the whole run. Iterations still
+     * pending after this are interrupted and counted as failed.
+     * @param latencies The recorder to record iteration latencies in. Pass
+     * the same recorder to the workload for finer grained measurements.
+     */
+    public LoadRunner(int concurrency, long timeoutMillis, LatencyRecorder latencies) {
+        if (concurrency < 1) {
+            throw new IllegalArgumentException("Concurrency must be at least 1.");
+        }
+        this.concurrency = concurrency;
+        this.timeoutMillis = timeoutMillis;
+        this.latencies = latencies;
+    }
+
+    public LoadResult run(int iterations, Workload workload) throws InterruptedException {
+        return run(iterations, i -> workload);
+    }
+
+    /**
+     * Runs {@code iterations} iterations, asking the given selector for the
+     * workload of each iteration. This allows mixing several scenarios in one
+     * run.
+     *
+     * @param iterations
+     * @param selector
+     * @return
+     * @throws InterruptedException
+     */
+    public LoadResult run(int iterations, WorkloadSelector selector) throws InterruptedException {
+        var failures = new AtomicInteger();
+        var completed = new AtomicInteger();
+        var sampleFailures = new ArrayList<Throwable>();
+
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency, newThreadFactory());
+        long start = System.nanoTime();
+
+        try {
+            for (int i = 0; i < iterations; ++i) {
+                Workload workload = selector.select(i);
+
+                executor.execute(() -> {
+                    long iterationStart = System.nanoTime();
+                    try {
+                        workload.execute();
+                    } catch (Throwable ex) {
+                        failures.incrementAndGet();
+                        addSampleFailure(sampleFailures, ex);
+                    } finally {
+                        latencies.recordSince(ITERATION, iterationStart);
+                        completed.incrementAndGet();
+                    }
+                });
+            }
+
+            executor.shutdown();
+
+            if (!executor.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                logger.warn("Load run did not finish within {}ms. Interrupting remaining iterations.", timeoutMillis);
+                executor.shutdownNow();
+                executor.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        long elapsed = System.nanoTime() - start;
+        int notCompleted = iterations - completed.get();
+
+        synchronized (sampleFailures) {
+            return new LoadResult(iterations, concurrency, failures.get() + notCompleted, new ArrayList<>(sampleFailures), elapsed, latencies);
+        }
+    }
+
+    private static void addSampleFailure(List<Throwable> sampleFailures, Throwable ex) {
+        synchronized (sampleFailures) {
+            if (sampleFailures.size() < MAX_SAMPLE_FAILURES) {
+                sampleFailures.add(ex);
+            }
+        }
+    }
+
+    private static ThreadFactory newThreadFactory() {
+        var counter = new AtomicInteger();
+
+        return r -> {
+            var thread = new Thread(r, "efs-load-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Chooses the workload for a particular iteration.
+     */
+    @FunctionalInterface
+    public interface WorkloadSelector {
+
+        Workload select(int iteration);
+    }
+
+}
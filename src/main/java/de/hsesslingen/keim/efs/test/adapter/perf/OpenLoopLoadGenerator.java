@@ -0,0 +1,183 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2020 Hochschule Esslingen
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE. 
+ */
+package de.hsesslingen.keim.efs.test.adapter.perf;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import org.slf4j.Logger;
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Sends requests at a fixed rate, regardless of how fast the responses come
+ * back. Latencies are measured from the time a request was supposed to be
+ * sent, not from when a worker got around to sending it. This way, the time
+ * requests spend queued behind slow ones is part of the measurement, which a
+ * closed-loop load generator hides (coordinated omission).
+ * <p>
+ * The arrival rate is ramped through a list of stages. Each stage waits for
+ * the requests of the previous one to complete, so they don't compete for
+ * the workers. The first stage in which the achieved throughput falls behind
+ * the target rate, the 99th percentile exceeds a limit or too many requests
+ * fail is reported as saturation point.
+ */
+public class OpenLoopLoadGenerator {
+
+    private static final Logger logger = getLogger(OpenLoopLoadGenerator.class);
+
+    /**
+     * Key of the latency measured from the intended send time.
+     */
+    public static final String RESPONSE_TIME = "response";
+
+    /**
+     * Key of the latency measured from the actual send time.
+     */
+    public static final String SERVICE_TIME = "service";
+
+    private final int maxWorkers;
+    private final double minThroughputRatio;
+    private final Duration maxP99;
+    private final double maxErrorRatio;
+
+    /**
+     * @param maxWorkers Upper bound of requests in flight. Requests beyond
+     * this are queued, their queueing time counts towards their latency.
+     * @param minThroughputRatio The fraction of the target rate a stage must
+     * achieve to not count as saturated, e.g. 0.95.
+     * @param maxP99 The response time percentile above which a stage counts
+     * as saturated.
+     * @param maxErrorRatio The fraction of failed requests above which a stage
+     * counts as saturated, e.g. 0.01. Failing requests are often fast, so
+     * they would otherwise make an overloaded adapter look good.
+     */
+    public OpenLoopLoadGenerator(int maxWorkers, double minThroughputRatio, Duration maxP99, double maxErrorRatio) {
+        this.maxWorkers = maxWorkers;
+        this.minThroughputRatio = minThroughputRatio;
+        this.maxP99 = maxP99;
+        this.maxErrorRatio = maxErrorRatio;
+    }
+
+    public OpenLoopReport run(List<ArrivalStage> stages, Workload workload) throws InterruptedException {
+        var counter = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(maxWorkers, r -> {
+            var thread = new Thread(r, "efs-open-loop-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        var results = new ArrayList<StageRun>();
+
+        try {
+            for (ArrivalStage stage : stages) {
+                var run = dispatch(stage, workload, executor);
+                results.add(run);
+
+                // Requests still in flight would otherwise slow down the next stage.
+                if (!run.done.await(1, TimeUnit.HOURS)) {
+                    logger.warn("Open-loop stage {} did not complete within an hour.", stage);
+                    break;
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        var report = new ArrayList<OpenLoopReport.StageResult>();
+
+        for (StageRun run : results) {
+            long elapsed = Math.max(run.lastCompletion.get() - run.start, 1);
+            double throughput = run.completed.get() / (elapsed / 1_000_000_000.0);
+            var response = run.latencies.getSummary(RESPONSE_TIME);
+            double errorRatio = run.errors.get() / (double) Math.max(run.completed.get(), 1);
+            boolean saturated = throughput < run.stage.getRatePerSecond() * minThroughputRatio
+                    || (response != null && response.getP99() > maxP99.toNanos())
+                    || errorRatio > maxErrorRatio;
+
+            report.add(new OpenLoopReport.StageResult(run.stage, throughput, run.errors.get(), run.latencies, saturated));
+        }
+
+        return new OpenLoopReport(report);
+    }
+
+    private StageRun dispatch(ArrivalStage stage, Workload workload, ExecutorService executor) {
+        var run = new StageRun(stage);
+        double intervalNanos = 1_000_000_000.0 / stage.getRatePerSecond();
+        int requests = stage.getRequests();
+
+        logger.info("Starting open-loop stage {}.", stage);
+
+        for (int i = 0; i < requests; ++i) {
+            long intended = run.start + (long) (i * intervalNanos);
+            long wait = intended - System.nanoTime();
+
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+
+            executor.execute(() -> {
+                long sent = System.nanoTime();
+
+                try {
+                    workload.execute();
+                } catch (Throwable ex) {
+                    run.errors.incrementAndGet();
+                } finally {
+                    long now = System.nanoTime();
+                    run.latencies.record(RESPONSE_TIME, now - intended);
+                    run.latencies.record(SERVICE_TIME, now - sent);
+                    run.completed.incrementAndGet();
+                    run.lastCompletion.accumulateAndGet(now, Math::max);
+                    run.done.countDown();
+                }
+            });
+        }
+
+        return run;
+    }
+
+    private static class StageRun {
+
+        private final ArrivalStage stage;
+        private final long start = System.nanoTime();
+        private final LatencyRecorder latencies = new LatencyRecorder();
+        private final AtomicInteger completed = new AtomicInteger();
+        private final AtomicInteger errors = new AtomicInteger();
+        private final AtomicLong lastCompletion = new AtomicLong(start);
+        private final CountDownLatch done;
+
+        private StageRun(ArrivalStage stage) {
+            this.stage = stage;
+            this.done = new CountDownLatch(stage.getRequests());
+        }
+    }
+
+}
@@ -0,0 +1,156 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2020 Hochschule Esslingen
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE. 
+ */
+package de.hsesslingen.keim.efs.test.adapter.perf;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Results of an open-loop load run, one per arrival stage.
+ */
+public class OpenLoopReport {
+
+    private final List<StageResult> stages;
+
+    public OpenLoopReport(List<StageResult> stages) {
+        this.stages = Collections.unmodifiableList(stages);
+    }
+
+    public List<StageResult> getStages() {
+        return stages;
+    }
+
+    /**
+     * Returns the first stage that was saturated, or null if the adapter kept
+     * up with all of them.
+     *
+     * @return
+     */
+    public StageResult getSaturationStage() {
+        return stages.stream().filter(StageResult::isSaturated).findFirst().orElse(null);
+    }
+
+    /**
+     * Returns the highest arrival rate the adapter kept up with before the
+     * first saturated stage, or 0 if already the first stage was saturated.
+     *
+     * @return
+     */
+    public double getMaxSustainableRate() {
+        double rate = 0;
+
+        for (StageResult stage : stages) {
+            if (stage.isSaturated()) {
+                break;
+            }
+            rate = stage.getStage().getRatePerSecond();
+        }
+
+        return rate;
+    }
+
+    @Override
+    public String toString() {
+        var sb = new StringBuilder();
+
+        for (StageResult stage : stages) {
+            sb.append(String.format("%n%-20s achieved=%.1f/s errors=%d (%.2f%%)%s%n  %s",
+                    stage.getStage(), stage.getThroughput(), stage.getErrors(), stage.getErrorRatio() * 100,
+                    stage.isSaturated() ? " SATURATED" : "",
+                    stage.getResponseTime()));
+        }
+
+        var saturation = getSaturationStage();
+        sb.append(String.format("%nMax sustainable rate: %.1f/s, saturation: %s", getMaxSustainableRate(), saturation != null ? saturation.getStage() : "not reached"));
+
+        return sb.toString();
+    }
+
+    public static final class StageResult {
+
+        private final ArrivalStage stage;
+        private final double throughput;
+        private final int errors;
+        private final LatencyRecorder latencies;
+        private final boolean saturated;
+
+        public StageResult(ArrivalStage stage, double throughput, int errors, LatencyRecorder latencies, boolean saturated) {
+            this.stage = stage;
+            this.throughput = throughput;
+            this.errors = errors;
+            this.latencies = latencies;
+            this.saturated = saturated;
+        }
+
+        public ArrivalStage getStage() {
+            return stage;
+        }
+
+        /**
+         * Completed requests per second.
+         *
+         * @return
+         */
+        public double getThroughput() {
+            return throughput;
+        }
+
+        public int getErrors() {
+            return errors;
+        }
+
+        /**
+         * The fraction of requests of this stage which failed.
+         *
+         * @return
+         */
+        public double getErrorRatio() {
+            long requests = getStage().getRequests();
+            return requests > 0 ? errors / (double) requests : 0;
+        }
+
+        /**
+         * Latency from the intended send time until completion.
+         *
+         * @return
+         */
+        public LatencySummary getResponseTime() {
+            return latencies.getSummary(OpenLoopLoadGenerator.RESPONSE_TIME);
+        }
+
+        /**
+         * Latency from the actual send time until completion.
+         *
+         * @return
+         */
+        public LatencySummary getServiceTime() {
+            return latencies.getSummary(OpenLoopLoadGenerator.SERVICE_TIME);
+        }
+
+        public boolean isSaturated() {
+            return saturated;
+        }
+    }
+
+}
@@ -0,0 +1,300 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2020 Hochschule Esslingen
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE. 
+ */
+package de.hsesslingen.keim.efs.test.adapter.perf;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * A parameter sweep over the options endpoint: Every combination of position,
+ * radius, time window and sharing flag is queried, and latency and response
+ * size are put in relation to the number of options returned.
+ */
+public class OptionsSweep {
+
+    /**
+     * Upper bounds of the buckets of result sizes used in the report.
+     */
+    private static final long[] COUNT_BUCKETS = {0, 10, 100, 1_000, 10_000, Long.MAX_VALUE};
+    private static final int BAR_WIDTH = 40;
+
+    private List<String> positions = Collections.emptyList();
+    private List<Integer> radii = Collections.singletonList(null);
+    private List<Duration> timeWindows = Collections.singletonList(null);
+    private List<Boolean> sharing = Collections.singletonList(null);
+    private int repetitions = 1;
+
+    private final List<Sample> samples = Collections.synchronizedList(new ArrayList<>());
+
+    public OptionsSweep positions(List<String> positions) {
+        this.positions = positions;
+        return this;
+    }
+
+    public OptionsSweep radii(Integer... radii) {
+        this.radii = List.of(radii);
+        return this;
+    }
+
+    public OptionsSweep timeWindows(Duration... timeWindows) {
+        this.timeWindows = List.of(timeWindows);
+        return this;
+    }
+
+    public OptionsSweep sharing(Boolean... sharing) {
+        this.sharing = List.of(sharing);
+        return this;
+    }
+
+    /**
+     * How often every combination is queried.
+     *
+     * @param repetitions
+     * @return
+     */
+    public OptionsSweep repetitions(int repetitions) {
+        this.repetitions = repetitions;
+        return this;
+    }
+
+    /**
+     * Returns all combinations of the configured parameters, each one as often
+     * as configured by {@link #repetitions(int)}.
+     *
+     * @return
+     */
+    public List<Case> cases() {
+        var cases = new ArrayList<Case>();
+
+        for (int i = 0; i < repetitions; ++i) {
+            for (String position : positions) {
+                for (Integer radius : radii) {
+                    for (Duration window : timeWindows) {
+                        for (Boolean share : sharing) {
+                            cases.add(new Case(position, radius, window, share));
+                        }
+                    }
+                }
+            }
+        }
+
+        return cases;
+    }
+
+    public void record(Case c, long options, long bytes, long nanos) {
+        samples.add(new Sample(c, options, bytes, nanos));
+    }
+
+    public List<Sample> getSamples() {
+        synchronized (samples) {
+            return new ArrayList<>(samples);
+        }
+    }
+
+    /**
+     * Fits {@code latency = a * options^b} to the samples with at least one
+     * option and returns b. A value around 1 means latency grows linearly with
+     * the result size, larger values mean it grows worse than linear.
+     *
+     * @return the exponent or NaN if there are less than two distinct result
+     * sizes.
+     */
+    public double getScalingExponent() {
+        double sx = 0, sy = 0, sxx = 0, sxy = 0;
+        int n = 0;
+
+        for (Sample sample : getSamples()) {
+            if (sample.options > 0 && sample.nanos > 0) {
+                double x = Math.log(sample.options);
+                double y = Math.log(sample.nanos);
+                sx += x;
+                sy += y;
+                sxx += x * x;
+                sxy += x * y;
+                ++n;
+            }
+        }
+
+        double denominator = n * sxx - sx * sx;
+        return n < 2 || denominator == 0 ? Double.NaN : (n * sxy - sx * sy) / denominator;
+    }
+
+    /**
+     * Renders the median latency and response size per bucket of result
+     * sizes as bar chart, followed by the scaling exponent.
+     *
+     * @return
+     */
+    public String report() {
+        var all = getSamples();
+        var sb = new StringBuilder();
+        var rows = new ArrayList<long[]>();
+        long maxMedian = 1;
+        long lower = 0;
+
+        for (long upper : COUNT_BUCKETS) {
+            var nanos = new ArrayList<Long>();
+            var bytes = new ArrayList<Long>();
+
+            for (Sample s : all) {
+                if (s.options >= lower && s.options <= upper) {
+                    nanos.add(s.nanos);
+                    bytes.add(s.bytes);
+                }
+            }
+
+            long medianNanos = median(nanos);
+            rows.add(new long[]{lower, upper, nanos.size(), medianNanos, median(bytes)});
+            maxMedian = Math.max(maxMedian, medianNanos);
+            lower = upper + 1;
+        }
+
+        sb.append(String.format("%-16s %7s %12s %12s%n", "options", "samples", "p50 latency", "p50 bytes"));
+
+        for (long[] row : rows) {
+            if (row[2] == 0) {
+                continue;
+            }
+
+            var range = row[1] == Long.MAX_VALUE ? ">" + (row[0] - 1) : row[0] + "-" + row[1];
+            int bar = (int) (BAR_WIDTH * row[3] / maxMedian);
+
+            sb.append(String.format(Locale.ROOT, "%-16s %7d %10.2fms %12d %s%n",
+                    range, row[2], row[3] / 1_000_000.0, row[4], "#".repeat(bar)));
+        }
+
+        sb.append(String.format(Locale.ROOT, "Scaling exponent of latency over result size: %.2f", getScalingExponent()));
+
+        return sb.toString();
+    }
+
+    private static long median(List<Long> values) {
+        if (values.isEmpty()) {
+            return 0;
+        }
+
+        values.sort(null);
+        return values.get(values.size() / 2);
+    }
+
+    /**
+     * Writes all samples as CSV, one line per request, for plotting.
+     *
+     * @param file
+     * @throws IOException
+     */
+    public void writeCsv(Path file) throws IOException {
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+
+        var sb = new StringBuilder("position,radius,timeWindowSeconds,sharing,options,bytes,latencyMillis\n");
+
+        for (Sample s : getSamples()) {
+            sb.append('"').append(s.c.position).append('"').append(',')
+                    .append(s.c.radius != null ? s.c.radius : "").append(',')
+                    .append(s.c.timeWindow != null ? s.c.timeWindow.getSeconds() : "").append(',')
+                    .append(s.c.sharing != null ? s.c.sharing : "").append(',')
+                    .append(s.options).append(',')
+                    .append(s.bytes).append(',')
+                    .append(String.format(Locale.ROOT, "%.3f", s.nanos / 1_000_000.0)).append('\n');
+        }
+
+        Files.writeString(file, sb, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * One combination of sweep parameters. Null values are left out of the
+     * request.
+     */
+    public static final class Case {
+
+        private final String position;
+        private final Integer radius;
+        private final Duration timeWindow;
+        private final Boolean sharing;
+
+        public Case(String position, Integer radius, Duration timeWindow, Boolean sharing) {
+            this.position = position;
+            this.radius = radius;
+            this.timeWindow = timeWindow;
+            this.sharing = sharing;
+        }
+
+        public String getPosition() {
+            return position;
+        }
+
+        public Integer getRadius() {
+            return radius;
+        }
+
+        public Duration getTimeWindow() {
+            return timeWindow;
+        }
+
+        public Boolean getSharing() {
+            return sharing;
+        }
+    }
+
+    public static final class Sample {
+
+        private final Case c;
+        private final long options;
+        private final long bytes;
+        private final long nanos;
+
+        private Sample(Case c, long options, long bytes, long nanos) {
+            this.c = c;
+            this.options = options;
+            this.bytes = bytes;
+            this.nanos = nanos;
+        }
+
+        public Case getCase() {
+            return c;
+        }
+
+        public long getOptions() {
+            return options;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        public long getNanos() {
+            return nanos;
+        }
+    }
+
+}
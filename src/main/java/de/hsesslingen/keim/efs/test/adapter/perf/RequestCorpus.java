@@ -0,0 +1,177 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2020 Hochschule Esslingen
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE. 
+ */
+package de.hsesslingen.keim.efs.test.adapter.perf;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.springframework.http.HttpMethod;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockServletContext;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.request;
+
+/**
+ * Requests built ahead of time, with URI, headers and body kept as strings
+ * and bytes. Dispatching an entry only creates a request from these, which
+ * can be done ahead of the dispatch with {@link #prepare(Entry)}, so the
+ * creation of model objects, timestamps and the serialization of the body
+ * don't end up in the measured path. The CPU time it took to build each
+ * entry the usual way is kept along with it, so it can be reported as the
+ * overhead the harness would otherwise have added.
+ */
+public class RequestCorpus {
+
+    private static final ThreadMXBean threadBean = initThreadBean();
+
+    private final MockServletContext servletContext = new MockServletContext();
+    private final List<Entry> entries = new ArrayList<>();
+
+    private static ThreadMXBean initThreadBean() {
+        var bean = ManagementFactory.getThreadMXBean();
+        return bean.isCurrentThreadCpuTimeSupported() ? bean : null;
+    }
+
+    /**
+     * Returns the CPU time of the current thread in nanoseconds, or the wall
+     * clock time if the JVM does not measure CPU time per thread.
+     *
+     * @return
+     */
+    public static long currentThreadCpuNanos() {
+        return threadBean != null ? threadBean.getCurrentThreadCpuTime() : System.nanoTime();
+    }
+
+    /**
+     * Builds the request of the given builder and adds it as entry.
+     *
+     * @param builder
+     * @param buildCpuNanos The CPU time it took to create the builder,
+     * including model objects and serialization.
+     * @return this corpus.
+     */
+    public synchronized RequestCorpus add(MockHttpServletRequestBuilder builder, long buildCpuNanos) {
+        entries.add(new Entry(builder.buildRequest(servletContext), buildCpuNanos));
+        return this;
+    }
+
+    public synchronized List<Entry> getEntries() {
+        return List.copyOf(entries);
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Builds the request of the given entry and returns a builder which hands
+     * out this request as it is. Transports build a bare request with only
+     * method and URI from the returned builder and then replace it with the
+     * prepared one, so setting headers and body is done here rather than
+     * while dispatching. The prepared request can only be sent once.
+     *
+     * @param entry
+     * @return
+     */
+    public MockHttpServletRequestBuilder prepare(Entry entry) {
+        MockHttpServletRequest prepared = entry.toBuilder().buildRequest(servletContext);
+        return request(entry.method, entry.uri).with(request -> prepared);
+    }
+
+    /**
+     * The number of body bytes of all entries.
+     *
+     * @return
+     */
+    public synchronized long getBodyBytes() {
+        return entries.stream().mapToLong(e -> e.body.length).sum();
+    }
+
+    /**
+     * A request ready to be sent.
+     */
+    public static final class Entry {
+
+        private final String endpoint;
+        private final HttpMethod method;
+        private final URI uri;
+        private final Map<String, List<String>> headers;
+        private final byte[] body;
+        private final long buildCpuNanos;
+
+        private Entry(MockHttpServletRequest request, long buildCpuNanos) {
+            var query = request.getQueryString();
+            var headerValues = new LinkedHashMap<String, List<String>>();
+
+            for (String name : Collections.list(request.getHeaderNames())) {
+                headerValues.put(name, List.copyOf(Collections.list(request.getHeaders(name))));
+            }
+
+            byte[] content = request.getContentAsByteArray();
+
+            this.endpoint = Endpoint.of(request);
+            this.method = HttpMethod.resolve(request.getMethod());
+            this.uri = URI.create(request.getRequestURI() + (query != null ? "?" + query : ""));
+            this.headers = Collections.unmodifiableMap(headerValues);
+            this.body = content != null ? content : new byte[0];
+            this.buildCpuNanos = buildCpuNanos;
+        }
+
+        /**
+         * Creates a builder for this request. The body array is shared, not
+         * copied.
+         *
+         * @return
+         */
+        public MockHttpServletRequestBuilder toBuilder() {
+            var builder = request(method, uri);
+
+            headers.forEach((name, values) -> builder.header(name, values.toArray()));
+
+            if (body.length > 0) {
+                builder.content(body);
+            }
+
+            return builder;
+        }
+
+        public String getEndpoint() {
+            return endpoint;
+        }
+
+        public long getBuildCpuNanos() {
+            return buildCpuNanos;
+        }
+
+        public int getBodySize() {
+            return body.length;
+        }
+    }
+
+}
@@ -0,0 +1,76 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2020 Hochschule Esslingen
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE. 
+ */
+package de.hsesslingen.keim.efs.test.adapter.perf;
+
+/**
+ * Resource usage of the JVM at one point in time. Values which could not be
+ * determined are -1.
+ */
+public class ResourceSample {
+
+    public enum Metric {
+        HEAP_AFTER_GC,
+        THREADS,
+        OPEN_FILE_DESCRIPTORS,
+        LOADED_CLASSES
+    }
+
+    private final long timestampMillis;
+    private final long heapAfterGc;
+    private final long threads;
+    private final long openFileDescriptors;
+    private final long loadedClasses;
+
+    public ResourceSample(long timestampMillis, long heapAfterGc, long threads, long openFileDescriptors, long loadedClasses) {
+        this.timestampMillis = timestampMillis;
+        this.heapAfterGc = heapAfterGc;
+        this.threads = threads;
+        this.openFileDescriptors = openFileDescriptors;
+        this.loadedClasses = loadedClasses;
+    }
+
+    public long getTimestampMillis() {
+        return timestampMillis;
+    }
+
+    public long get(Metric metric) {
+        switch (metric) {
+            case HEAP_AFTER_GC:
+                return heapAfterGc;
+            case THREADS:
+                return threads;
+            case OPEN_FILE_DESCRIPTORS:
+                return openFileDescriptors;
+            default:
+                return loadedClasses;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "heapAfterGc=" + (heapAfterGc / 1024) + "KiB threads=" + threads
+                + " openFileDescriptors=" + openFileDescriptors + " loadedClasses=" + loadedClasses;
+    }
+
+}
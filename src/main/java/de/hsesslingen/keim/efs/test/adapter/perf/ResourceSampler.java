@@ -0,0 +1,118 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2020 Hochschule Esslingen
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE. 
+ */
+package de.hsesslingen.keim.efs.test.adapter.perf;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Samples the resource usage of the JVM through its management beans at a
+ * fixed interval, until it is stopped.
+ */
+public class ResourceSampler implements AutoCloseable {
+
+    private final boolean forceGc;
+    private final List<ResourceSample> samples = new ArrayList<>();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        var thread = new Thread(r, "efs-resource-sampler");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * @param forceGc Whether to request a garbage collection before each
+     * sample. Without it, the heap after the last GC may be arbitrarily old.
+     */
+    public ResourceSampler(boolean forceGc) {
+        this.forceGc = forceGc;
+    }
+
+    public ResourceSampler start(Duration interval) {
+        scheduler.scheduleAtFixedRate(() -> {
+            var sample = sample(forceGc);
+
+            synchronized (samples) {
+                samples.add(sample);
+            }
+        }, 0, interval.toMillis(), TimeUnit.MILLISECONDS);
+
+        return this;
+    }
+
+    /**
+     * Stops sampling and takes one last sample.
+     *
+     * @return all samples.
+     */
+    public List<ResourceSample> stop() {
+        scheduler.shutdownNow();
+
+        synchronized (samples) {
+            samples.add(sample(forceGc));
+            return new ArrayList<>(samples);
+        }
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+
+    public static ResourceSample sample(boolean forceGc) {
+        if (forceGc) {
+            System.gc();
+        }
+
+        long heapAfterGc = 0;
+
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            MemoryUsage usage = pool.getType() == MemoryType.HEAP ? pool.getCollectionUsage() : null;
+
+            if (usage != null) {
+                heapAfterGc += usage.getUsed();
+            }
+        }
+
+        var os = ManagementFactory.getOperatingSystemMXBean();
+        long openFileDescriptors = os instanceof com.sun.management.UnixOperatingSystemMXBean
+                ? ((com.sun.management.UnixOperatingSystemMXBean) os).getOpenFileDescriptorCount()
+                : -1;
+
+        return new ResourceSample(
+                System.currentTimeMillis(),
+                heapAfterGc,
+                ManagementFactory.getThreadMXBean().getThreadCount(),
+                openFileDescriptors,
+                ManagementFactory.getClassLoadingMXBean().getLoadedClassCount());
+    }
+
+}
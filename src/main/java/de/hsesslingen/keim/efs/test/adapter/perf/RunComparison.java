@@ -0,0 +1,406 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2020 Hochschule Esslingen
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE. 
+ */
+package de.hsesslingen.keim.efs.test.adapter.perf;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Compares a run with a rolling baseline of the previous runs of the same
+ * suite on the same environment. For every metric, a prediction interval for
+ * a single new observation is computed from the baseline, using the Student
+ * t distribution:
+ * <pre>
+ * mean &plusmn; t(1 - alpha / 2, n - 1) * s * sqrt(1 + 1 / n)
+ * </pre> A metric regressed if it lies outside the interval on the worse
+ * side. The interval widens with the noise of the baseline, so noisy metrics
+ * need larger changes to be flagged than stable ones, instead of all sharing
+ * one fixed threshold. The computation is done on the logarithm of the
+ * values, as latencies and allocations vary by factors rather than by fixed
+ * amounts.
+ * <p>
+ * A run has many metrics, so the confidence is Bonferroni corrected: the
+ * error probability {@code alpha = 1 - confidence} is divided by the number
+ * of metrics. The given confidence then applies to the run as a whole rather
+ * than to each metric, so a run without changes is flagged with at most
+ * probability alpha.
+ */
+public class RunComparison {
+
+    public enum Verdict {
+        REGRESSED, IMPROVED, UNCHANGED, NEW, INSUFFICIENT_HISTORY
+    }
+
+    private final int window;
+    private final int minRuns;
+    private final double confidence;
+    private final double minRelativeSpread;
+    private final double minAbsoluteSpread;
+
+    /**
+     * @param window The number of most recent runs used as baseline.
+     * @param minRuns The number of baseline runs required for a verdict.
+     * @param confidence The confidence of the comparison of a whole run, e.g.
+     * 0.99.
+     * @param minRelativeSpread The standard deviation assumed at least,
+     * relative to the baseline, e.g. 0.01. Keeps metrics which were identical
+     * in all baseline runs from being flagged on the smallest change.
+     * @param minAbsoluteSpread The standard deviation assumed at least for
+     * metrics with zero or negative values, e.g. 0.001. The relative spread
+     * is 0 for a baseline of 0, such as an error ratio which was always 0.
+     */
+    public RunComparison(int window, int minRuns, double confidence, double minRelativeSpread, double minAbsoluteSpread) {
+        if (minRuns < 2) {
+            throw new IllegalArgumentException("At least two baseline runs are needed to estimate the spread.");
+        }
+
+        this.window = window;
+        this.minRuns = minRuns;
+        this.confidence = confidence;
+        this.minRelativeSpread = minRelativeSpread;
+        this.minAbsoluteSpread = minAbsoluteSpread;
+    }
+
+    /**
+     * Compares the given run with the last runs of the given history, which
+     * must be ordered oldest first and not contain the run itself.
+     *
+     * @param run
+     * @param history
+     * @return
+     */
+    public Diff compare(RunRecord run, List<RunRecord> history) {
+        var baseline = history.subList(Math.max(0, history.size() - window), history.size());
+        var metrics = new ArrayList<MetricDiff>();
+        double alpha = (1 - confidence) / Math.max(run.getMetrics().size(), 1);
+
+        run.getMetrics().forEach((name, metric) -> {
+            var values = new ArrayList<Double>();
+
+            for (RunRecord previous : baseline) {
+                var previousMetric = previous.getMetrics().get(name);
+                if (previousMetric != null) {
+                    values.add(previousMetric.getValue());
+                }
+            }
+
+            metrics.add(compare(name, metric, values, alpha));
+        });
+
+        return new Diff(run, baseline.size(), metrics);
+    }
+
+    private MetricDiff compare(String name, RunRecord.Metric metric, List<Double> values, double alpha) {
+        double value = metric.getValue();
+
+        if (values.isEmpty()) {
+            return new MetricDiff(name, value, Double.NaN, Double.NaN, Double.NaN, 0, Verdict.NEW);
+        }
+
+        int n = values.size();
+        boolean logScale = value > 0 && values.stream().allMatch(v -> v > 0);
+
+        double sum = 0;
+        for (double v : values) {
+            sum += logScale ? Math.log(v) : v;
+        }
+        double mean = sum / n;
+
+        double squares = 0;
+        for (double v : values) {
+            double d = (logScale ? Math.log(v) : v) - mean;
+            squares += d * d;
+        }
+        double sd = n > 1 ? Math.sqrt(squares / (n - 1)) : 0;
+
+        // On the log scale, a relative spread is an absolute one.
+        double minSpread = logScale ? Math.log1p(minRelativeSpread) : Math.max(Math.abs(mean) * minRelativeSpread, minAbsoluteSpread);
+        sd = Math.max(sd, minSpread);
+
+        double center = logScale ? Math.exp(mean) : mean;
+
+        if (n < minRuns) {
+            return new MetricDiff(name, value, center, Double.NaN, Double.NaN, n, Verdict.INSUFFICIENT_HISTORY);
+        }
+
+        double t = studentTQuantile(1 - alpha / 2, n - 1);
+        double halfWidth = t * sd * Math.sqrt(1 + 1.0 / n);
+        double lower = logScale ? Math.exp(mean - halfWidth) : mean - halfWidth;
+        double upper = logScale ? Math.exp(mean + halfWidth) : mean + halfWidth;
+
+        Verdict verdict;
+        if (value > upper) {
+            verdict = metric.isHigherIsBetter() ? Verdict.IMPROVED : Verdict.REGRESSED;
+        } else if (value < lower) {
+            verdict = metric.isHigherIsBetter() ? Verdict.REGRESSED : Verdict.IMPROVED;
+        } else {
+            verdict = Verdict.UNCHANGED;
+        }
+
+        return new MetricDiff(name, value, center, lower, upper, n, verdict);
+    }
+
+    /**
+     * The quantile of the Student t distribution with the given degrees of
+     * freedom, found by bisection on its distribution function.
+     *
+     * @param p
+     * @param degreesOfFreedom
+     * @return
+     */
+    public static double studentTQuantile(double p, double degreesOfFreedom) {
+        if (p == 0.5) {
+            return 0;
+        }
+
+        if (p < 0.5) {
+            return -studentTQuantile(1 - p, degreesOfFreedom);
+        }
+
+        double low = 0;
+        double high = 1;
+
+        while (studentTCdf(high, degreesOfFreedom) < p) {
+            high *= 2;
+        }
+
+        for (int i = 0; i < 100 && high - low > 1e-9; ++i) {
+            double mid = (low + high) / 2;
+
+            if (studentTCdf(mid, degreesOfFreedom) < p) {
+                low = mid;
+            } else {
+                high = mid;
+            }
+        }
+
+        return (low + high) / 2;
+    }
+
+    public static double studentTCdf(double t, double degreesOfFreedom) {
+        double x = degreesOfFreedom / (degreesOfFreedom + t * t);
+        double tail = 0.5 * regularizedBeta(x, degreesOfFreedom / 2, 0.5);
+        return t > 0 ? 1 - tail : tail;
+    }
+
+    /**
+     * The regularized incomplete beta function, evaluated with its continued
+     * fraction.
+     */
+    private static double regularizedBeta(double x, double a, double b) {
+        if (x <= 0) {
+            return 0;
+        }
+
+        if (x >= 1) {
+            return 1;
+        }
+
+        double front = Math.exp(logGamma(a + b) - logGamma(a) - logGamma(b) + a * Math.log(x) + b * Math.log(1 - x));
+
+        // The continued fraction converges quickly only below this point, use the symmetry above it.
+        if (x < (a + 1) / (a + b + 2)) {
+            return front * betaContinuedFraction(x, a, b) / a;
+        }
+
+        return 1 - front * betaContinuedFraction(1 - x, b, a) / b;
+    }
+
+    private static double betaContinuedFraction(double x, double a, double b) {
+        final double tiny = 1e-300;
+        double c = 1;
+        double d = 1 - (a + b) * x / (a + 1);
+        d = 1 / (Math.abs(d) < tiny ? tiny : d);
+        double h = d;
+
+        for (int m = 1; m <= 300; ++m) {
+            int m2 = 2 * m;
+
+            double aa = m * (b - m) * x / ((a - 1 + m2) * (a + m2));
+            d = 1 + aa * d;
+            d = 1 / (Math.abs(d) < tiny ? tiny : d);
+            c = 1 + aa / c;
+            c = Math.abs(c) < tiny ? tiny : c;
+            h *= d * c;
+
+            aa = -(a + m) * (a + b + m) * x / ((a + m2) * (a + 1 + m2));
+            d = 1 + aa * d;
+            d = 1 / (Math.abs(d) < tiny ? tiny : d);
+            c = 1 + aa / c;
+            c = Math.abs(c) < tiny ? tiny : c;
+            double delta = d * c;
+            h *= delta;
+
+            if (Math.abs(delta - 1) < 1e-12) {
+                break;
+            }
+        }
+
+        return h;
+    }
+
+    /**
+     * The logarithm of the gamma function, using the Lanczos approximation.
+     */
+    private static double logGamma(double x) {
+        final double[] coefficients = {
+            76.18009172947146, -86.50532032941677, 24.01409824083091,
+            -1.231739572450155, 0.1208650973866179e-2, -0.5395239384953e-5
+        };
+
+        double y = x;
+        double tmp = x + 5.5;
+        tmp -= (x + 0.5) * Math.log(tmp);
+        double series = 1.000000000190015;
+
+        for (double coefficient : coefficients) {
+            series += coefficient / ++y;
+        }
+
+        return -tmp + Math.log(2.5066282746310005 * series / x);
+    }
+
+    /**
+     * The outcome of a comparison of one metric.
+     */
+    public static final class MetricDiff {
+
+        private final String name;
+        private final double value;
+        private final double baseline;
+        private final double lower;
+        private final double upper;
+        private final int runs;
+        private final Verdict verdict;
+
+        private MetricDiff(String name, double value, double baseline, double lower, double upper, int runs, Verdict verdict) {
+            this.name = name;
+            this.value = value;
+            this.baseline = baseline;
+            this.lower = lower;
+            this.upper = upper;
+            this.runs = runs;
+            this.verdict = verdict;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public double getValue() {
+            return value;
+        }
+
+        /**
+         * The center of the baseline, the geometric mean for positive values.
+         *
+         * @return
+         */
+        public double getBaseline() {
+            return baseline;
+        }
+
+        public double getLower() {
+            return lower;
+        }
+
+        public double getUpper() {
+            return upper;
+        }
+
+        public int getRuns() {
+            return runs;
+        }
+
+        public Verdict getVerdict() {
+            return verdict;
+        }
+
+        public double getRelativeChange() {
+            return baseline != 0 && !Double.isNaN(baseline) ? (value - baseline) / baseline : Double.NaN;
+        }
+    }
+
+    /**
+     * The comparison of all metrics of a run.
+     */
+    public static final class Diff {
+
+        private final RunRecord run;
+        private final int baselineRuns;
+        private final List<MetricDiff> metrics;
+
+        private Diff(RunRecord run, int baselineRuns, List<MetricDiff> metrics) {
+            this.run = run;
+            this.baselineRuns = baselineRuns;
+            this.metrics = List.copyOf(metrics);
+        }
+
+        public RunRecord getRun() {
+            return run;
+        }
+
+        public int getBaselineRuns() {
+            return baselineRuns;
+        }
+
+        public List<MetricDiff> getMetrics() {
+            return metrics;
+        }
+
+        public List<MetricDiff> getRegressions() {
+            var regressions = new ArrayList<MetricDiff>();
+
+            for (MetricDiff metric : metrics) {
+                if (metric.verdict == Verdict.REGRESSED) {
+                    regressions.add(metric);
+                }
+            }
+
+            return regressions;
+        }
+
+        public boolean hasRegressions() {
+            return !getRegressions().isEmpty();
+        }
+
+        public String report() {
+            var sb = new StringBuilder();
+
+            sb.append(String.format("%s on %s against %d previous runs%n", run.getSuite(), run.getFingerprint(), baselineRuns));
+            sb.append(String.format("%-48s %12s %12s %8s %25s  %s%n", "metric", "value", "baseline", "change", "expected range", "verdict"));
+
+            for (MetricDiff m : metrics) {
+                var range = Double.isNaN(m.lower) ? "" : String.format(Locale.ROOT, "%.3f - %.3f", m.lower, m.upper);
+                var change = Double.isNaN(m.getRelativeChange()) ? "" : String.format(Locale.ROOT, "%+.1f%%", 100 * m.getRelativeChange());
+
+                sb.append(String.format(Locale.ROOT, "%-48s %12.3f %12.3f %8s %25s  %s%n",
+                        m.name, m.value, m.baseline, change, range, m.verdict));
+            }
+
+            return sb.toString();
+        }
+    }
+}
@@ -0,0 +1,195 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2020 Hochschule Esslingen
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE. 
+ */
+package de.hsesslingen.keim.efs.test.adapter.perf;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The figures of one performance run, as stored in a {@link RunStore}. Runs
+ * are grouped by suite, e.g. the test class and the load mode, and only
+ * compared with runs on an environment with the same fingerprint.
+ */
+public class RunRecord {
+
+    private final String suite;
+    private final Instant timestamp;
+    private final String fingerprint;
+    private final Map<String, String> environment;
+    private final Map<String, Metric> metrics;
+
+    public RunRecord(
+            String suite,
+            Instant timestamp,
+            String fingerprint,
+            Map<String, String> environment,
+            Map<String, Metric> metrics
+    ) {
+        this.suite = suite;
+        this.timestamp = timestamp;
+        this.fingerprint = fingerprint;
+        this.environment = environment != null ? new TreeMap<>(environment) : new TreeMap<>();
+        this.metrics = metrics != null ? new TreeMap<>(metrics) : new TreeMap<>();
+    }
+
+    /**
+     * Used by Jackson. The timestamp is stored as ISO-8601 text, so reading
+     * the store does not depend on the Java time module being registered.
+     */
+    @JsonCreator
+    private static RunRecord fromJson(
+            @JsonProperty("suite") String suite,
+            @JsonProperty("timestamp") String timestamp,
+            @JsonProperty("fingerprint") String fingerprint,
+            @JsonProperty("environment") Map<String, String> environment,
+            @JsonProperty("metrics") Map<String, Metric> metrics
+    ) {
+        return new RunRecord(suite, timestamp != null ? Instant.parse(timestamp) : null, fingerprint, environment, metrics);
+    }
+
+    /**
+     * Creates an empty record of a run of the given suite in the current
+     * environment. Extra entries, e.g. the version of the adapter, are
+     * recorded with the environment but not part of the fingerprint.
+     *
+     * @param suite
+     * @param extraEnvironment
+     * @return
+     */
+    public static RunRecord start(String suite, Map<String, String> extraEnvironment) {
+        var environment = new TreeMap<>(EnvironmentFingerprint.current());
+        environment.putAll(extraEnvironment);
+
+        return new RunRecord(suite, Instant.now(), EnvironmentFingerprint.hash(), environment, null);
+    }
+
+    /**
+     * Adds a metric. Latencies, sizes and allocations are better when lower,
+     * throughputs when higher.
+     *
+     * @param name
+     * @param value
+     * @param higherIsBetter
+     * @return
+     */
+    public RunRecord metric(String name, double value, boolean higherIsBetter) {
+        metrics.put(name, new Metric(value, higherIsBetter));
+        return this;
+    }
+
+    /**
+     * Adds the p50, p95 and p99 of the given summary in milliseconds.
+     *
+     * @param name
+     * @param summary
+     * @return
+     */
+    public RunRecord latency(String name, LatencySummary summary) {
+        metric(name + " p50 ms", summary.getP50() / 1_000_000.0, false);
+        metric(name + " p95 ms", summary.getP95() / 1_000_000.0, false);
+        metric(name + " p99 ms", summary.getP99() / 1_000_000.0, false);
+        return this;
+    }
+
+    /**
+     * Adds the latencies of all keys of the given recorder.
+     *
+     * @param recorder
+     * @return
+     */
+    public RunRecord latencies(LatencyRecorder recorder) {
+        recorder.getSummaries().forEach(this::latency);
+        return this;
+    }
+
+    /**
+     * Adds the average allocated bytes of all keys of the given meter.
+     *
+     * @param meter
+     * @return
+     */
+    public RunRecord allocations(AllocationMeter meter) {
+        meter.getAverages().forEach((key, bytes) -> metric(key + " bytes", bytes, false));
+        return this;
+    }
+
+    public String getSuite() {
+        return suite;
+    }
+
+    @JsonIgnore
+    public Instant getTimestamp() {
+        return timestamp;
+    }
+
+    @JsonProperty("timestamp")
+    private String getTimestampText() {
+        return timestamp != null ? timestamp.toString() : null;
+    }
+
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    public Map<String, String> getEnvironment() {
+        return Collections.unmodifiableMap(environment);
+    }
+
+    public Map<String, Metric> getMetrics() {
+        return Collections.unmodifiableMap(metrics);
+    }
+
+    @Override
+    public String toString() {
+        return suite + " at " + timestamp + " on " + fingerprint + " with " + metrics.size() + " metrics";
+    }
+
+    public static final class Metric {
+
+        private final double value;
+        private final boolean higherIsBetter;
+
+        @JsonCreator
+        public Metric(
+                @JsonProperty("value") double value,
+                @JsonProperty("higherIsBetter") boolean higherIsBetter
+        ) {
+            this.value = value;
+            this.higherIsBetter = higherIsBetter;
+        }
+
+        public double getValue() {
+            return value;
+        }
+
+        public boolean isHigherIsBetter() {
+            return higherIsBetter;
+        }
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2020 Hochschule Esslingen
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE. 
+ */
+package de.hsesslingen.keim.efs.test.adapter.perf;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import static java.nio.file.StandardOpenOption.APPEND;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.WRITE;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Append-only store of {@link RunRecord}s in a local file, one JSON object
+ * per line. Records are never rewritten, so the file can be kept across
+ * builds, e.g. in a CI cache, and inspected with standard tools. Appends
+ * take a file lock, so several JVMs can share the file.
+ */
+public class RunStore {
+
+    private static final Logger logger = getLogger(RunStore.class);
+
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    private final Path file;
+
+    public RunStore(Path file) {
+        this.file = file;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    public void append(RunRecord record) throws IOException {
+        byte[] line = (toJson(record) + "\n").getBytes(StandardCharsets.UTF_8);
+
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+
+        // File locks are held per JVM, so appends within this JVM must not overlap.
+        synchronized (RunStore.class) {
+            try (var channel = FileChannel.open(file, CREATE, WRITE, APPEND);
+                    var lock = channel.lock()) {
+                var buffer = ByteBuffer.wrap(line);
+
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
+        }
+    }
+
+    private static String toJson(RunRecord record) throws JsonProcessingException {
+        return mapper.writeValueAsString(record);
+    }
+
+    /**
+     * Reads all records in the order they were stored. Lines which can not be
+     * parsed, e.g. after an interrupted write, are skipped.
+     *
+     * @return
+     * @throws IOException
+     */
+    public List<RunRecord> readAll() throws IOException {
+        var records = new ArrayList<RunRecord>();
+
+        if (!Files.exists(file)) {
+            return records;
+        }
+
+        int lineNumber = 0;
+
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            ++lineNumber;
+
+            if (line.isBlank()) {
+                continue;
+            }
+
+            try {
+                records.add(mapper.readValue(line, RunRecord.class));
+            } catch (JsonProcessingException ex) {
+                logger.warn("Skipping unreadable line {} of {}: {}", lineNumber, file, ex.getOriginalMessage());
+            }
+        }
+
+        return records;
+    }
+
+    /**
+     * Reads the records of the given suite on the given environment, oldest
+     * first.
+     *
+     * @param suite
+     * @param fingerprint
+     * @return
+     * @throws IOException
+     */
+    public List<RunRecord> history(String suite, String fingerprint) throws IOException {
+        return readAll().stream()
+                .filter(r -> suite.equals(r.getSuite()) && fingerprint.equals(r.getFingerprint()))
+                .collect(Collectors.toList());
+    }
+}
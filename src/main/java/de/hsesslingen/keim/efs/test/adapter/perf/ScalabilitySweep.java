@@ -0,0 +1,174 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2020 Hochschule Esslingen
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE. 
+ */
+package de.hsesslingen.keim.efs.test.adapter.perf;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Runs a workload at increasing concurrency and fits the
+ * {@link UniversalScalabilityLaw} to the throughputs, to find where adding
+ * workers, and thus cores, stops helping.
+ */
+public class ScalabilitySweep {
+
+    private static final int BAR_WIDTH = 40;
+
+    /**
+     * Runs the workload with the given number of workers.
+     */
+    @FunctionalInterface
+    public interface LoadAtConcurrency {
+
+        public LoadResult run(int concurrency) throws Exception;
+    }
+
+    private final String name;
+    private final List<Point> points = new ArrayList<>();
+
+    public ScalabilitySweep(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Returns 1, 2, 4, ... up to and including {@code max}, even if it is not
+     * a power of two.
+     *
+     * @param max
+     * @return
+     */
+    public static List<Integer> doublingUpTo(int max) {
+        var levels = new ArrayList<Integer>();
+
+        for (int n = 1; n < max; n *= 2) {
+            levels.add(n);
+        }
+
+        levels.add(Math.max(1, max));
+        return levels;
+    }
+
+    /**
+     * Runs the workload at each of the given concurrencies, one after
+     * another, and records the results.
+     *
+     * @param concurrencies
+     * @param load
+     * @return
+     * @throws Exception
+     */
+    public ScalabilitySweep run(List<Integer> concurrencies, LoadAtConcurrency load) throws Exception {
+        for (int concurrency : concurrencies) {
+            record(concurrency, load.run(concurrency));
+        }
+
+        return this;
+    }
+
+    public synchronized void record(int concurrency, LoadResult result) {
+        points.add(new Point(concurrency, result.getThroughput(), result.getFailures(), result.getLatencies().getSummary(LoadRunner.ITERATION)));
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public synchronized List<Point> getPoints() {
+        return List.copyOf(points);
+    }
+
+    public UniversalScalabilityLaw fit() {
+        var all = getPoints();
+        int[] concurrencies = new int[all.size()];
+        double[] throughputs = new double[all.size()];
+
+        for (int i = 0; i < all.size(); ++i) {
+            concurrencies[i] = all.get(i).concurrency;
+            throughputs[i] = all.get(i).throughput;
+        }
+
+        return UniversalScalabilityLaw.fit(concurrencies, throughputs);
+    }
+
+    public String report() {
+        var all = getPoints();
+        var law = fit();
+        var sb = new StringBuilder();
+        double maxThroughput = 1e-9;
+
+        for (Point p : all) {
+            maxThroughput = Math.max(maxThroughput, Math.max(p.throughput, law.predict(p.concurrency)));
+        }
+
+        sb.append(String.format("%n%s%n", name));
+        sb.append(String.format("%6s %12s %12s %10s %10s %7s%n", "N", "throughput", "USL", "efficiency", "p99", "failed"));
+
+        for (Point p : all) {
+            double efficiency = p.throughput / (p.concurrency * law.getLambda());
+            int bar = (int) (BAR_WIDTH * p.throughput / maxThroughput);
+
+            sb.append(String.format(Locale.ROOT, "%6d %10.1f/s %10.1f/s %9.0f%% %8.1fms %7d %s%n",
+                    p.concurrency, p.throughput, law.predict(p.concurrency), 100 * efficiency,
+                    p.latency.getP99() / 1_000_000.0, p.failures, "#".repeat(bar)));
+        }
+
+        sb.append(law);
+        return sb.toString();
+    }
+
+    /**
+     * The outcome of the workload at one concurrency.
+     */
+    public static final class Point {
+
+        private final int concurrency;
+        private final double throughput;
+        private final int failures;
+        private final LatencySummary latency;
+
+        private Point(int concurrency, double throughput, int failures, LatencySummary latency) {
+            this.concurrency = concurrency;
+            this.throughput = throughput;
+            this.failures = failures;
+            this.latency = latency;
+        }
+
+        public int getConcurrency() {
+            return concurrency;
+        }
+
+        public double getThroughput() {
+            return throughput;
+        }
+
+        public int getFailures() {
+            return failures;
+        }
+
+        public LatencySummary getLatency() {
+            return latency;
+        }
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2020 Hochschule Esslingen
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE. 
+ */
+package de.hsesslingen.keim.efs.test.adapter.perf;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Detects sustained upward trends in a series of samples, using the
+ * Mann-Kendall test for the presence of a monotonic trend and the Theil-Sen
+ * estimator for its size. Both are robust against single outliers, like the
+ * occasional spike after a GC that did not collect everything.
+ */
+public class TrendDetector {
+
+    /**
+     * z value of the one-sided 99% quantile of the normal distribution.
+     */
+    private static final double Z_99 = 2.326;
+
+    private final int minSamples;
+    private final double minRelativeGrowth;
+
+    /**
+     * @param minSamples Series with fewer samples are never reported as
+     * growing.
+     * @param minRelativeGrowth The growth over the whole series, relative to
+     * its median, which must be exceeded to report a trend, e.g. 0.1 for 10%.
+     */
+    public TrendDetector(int minSamples, double minRelativeGrowth) {
+        this.minSamples = minSamples;
+        this.minRelativeGrowth = minRelativeGrowth;
+    }
+
+    /**
+     * Returns the Mann-Kendall z statistic of the series. Positive values
+     * indicate an upward trend.
+     *
+     * @param values
+     * @return
+     */
+    public static double mannKendallZ(long[] values) {
+        int n = values.length;
+        long s = 0;
+
+        for (int i = 0; i < n - 1; ++i) {
+            for (int j = i + 1; j < n; ++j) {
+                s += Long.signum(values[j] - values[i]);
+            }
+        }
+
+        double variance = n * (n - 1.0) * (2.0 * n + 5.0) / 18.0;
+
+        if (s == 0 || variance == 0) {
+            return 0;
+        }
+
+        return (s - Long.signum(s)) / Math.sqrt(variance);
+    }
+
+    /**
+     * Returns the Theil-Sen slope of the series per sample, i.e. the median of
+     * the slopes between all pairs of samples.
+     *
+     * @param values
+     * @return
+     */
+    public static double theilSenSlope(long[] values) {
+        var slopes = new ArrayList<Double>();
+
+        for (int i = 0; i < values.length - 1; ++i) {
+            for (int j = i + 1; j < values.length; ++j) {
+                slopes.add((values[j] - values[i]) / (double) (j - i));
+            }
+        }
+
+        return median(slopes);
+    }
+
+    private static double median(List<Double> values) {
+        if (values.isEmpty()) {
+            return 0;
+        }
+
+        values.sort(null);
+        int mid = values.size() / 2;
+        return values.size() % 2 == 1 ? values.get(mid) : (values.get(mid - 1) + values.get(mid)) / 2;
+    }
+
+    /**
+     * Checks the given series for a sustained upward trend.
+     *
+     * @param values
+     * @return
+     */
+    public Trend analyze(long[] values) {
+        if (values.length < minSamples) {
+            return new Trend(0, 0, false);
+        }
+
+        double z = mannKendallZ(values);
+        double slope = theilSenSlope(values);
+
+        var sorted = Arrays.stream(values).sorted().toArray();
+        double median = sorted[sorted.length / 2];
+        double growth = median > 0 ? slope * (values.length - 1) / median : 0;
+
+        return new Trend(z, growth, z > Z_99 && growth > minRelativeGrowth);
+    }
+
+    public static final class Trend {
+
+        private final double z;
+        private final double relativeGrowth;
+        private final boolean growing;
+
+        private Trend(double z, double relativeGrowth, boolean growing) {
+            this.z = z;
+            this.relativeGrowth = relativeGrowth;
+            this.growing = growing;
+        }
+
+        public double getZ() {
+            return z;
+        }
+
+        /**
+         * The estimated growth over the whole series, relative to its median.
+         *
+         * @return
+         */
+        public double getRelativeGrowth() {
+            return relativeGrowth;
+        }
+
+        public boolean isGrowing() {
+            return growing;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s (z=%.2f, growth=%.1f%%)", growing ? "GROWING" : "stable", z, relativeGrowth * 100);
+        }
+    }
+
+}
@@ -0,0 +1,217 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2020 Hochschule Esslingen
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE. 
+ */
+package de.hsesslingen.keim.efs.test.adapter.perf;
+
+import java.util.Locale;
+
+/**
+ * The Universal Scalability Law of Gunther, fitted to measured throughputs:
+ * <pre>
+ * X(N) = lambda * N / (1 + sigma * (N - 1) + kappa * N * (N - 1))
+ * </pre> with {@code sigma} the contention (serialized share of the work)
+ * and {@code kappa} the coherency cost (crosstalk between workers). With
+ * {@code kappa > 0}, throughput peaks at a finite concurrency and declines
+ * beyond it.
+ * <p>
+ * The coefficients are fitted by least squares on the linearized form
+ * {@code N / C(N) - 1 = sigma * (N - 1) + kappa * N * (N - 1)}, with
+ * {@code C(N) = X(N) / X(1)} the relative capacity, and are constrained to be
+ * non-negative.
+ */
+public final class UniversalScalabilityLaw {
+
+    private final double lambda;
+    private final double sigma;
+    private final double kappa;
+    private final double rSquared;
+
+    private UniversalScalabilityLaw(double lambda, double sigma, double kappa, double rSquared) {
+        this.lambda = lambda;
+        this.sigma = sigma;
+        this.kappa = kappa;
+        this.rSquared = rSquared;
+    }
+
+    /**
+     * Fits the law to the given concurrencies and throughputs. The
+     * throughput at concurrency 1 is taken as {@code lambda}. If it was not
+     * measured, the throughput per worker at the lowest concurrency is used
+     * instead, which underestimates the penalties somewhat.
+     *
+     * @param concurrencies
+     * @param throughputs
+     * @return
+     */
+    public static UniversalScalabilityLaw fit(int[] concurrencies, double[] throughputs) {
+        if (concurrencies.length != throughputs.length || concurrencies.length == 0) {
+            throw new IllegalArgumentException("Need the same, non-zero number of concurrencies and throughputs.");
+        }
+
+        int lowest = 0;
+        for (int i = 1; i < concurrencies.length; ++i) {
+            if (concurrencies[i] < concurrencies[lowest]) {
+                lowest = i;
+            }
+        }
+
+        double lambda = throughputs[lowest] / concurrencies[lowest];
+
+        // Sums of the normal equations of y = sigma * a + kappa * b.
+        double aa = 0, ab = 0, bb = 0, ay = 0, by = 0;
+
+        for (int i = 0; i < concurrencies.length; ++i) {
+            double n = concurrencies[i];
+            double capacity = throughputs[i] / lambda;
+
+            if (n <= 1 || capacity <= 0) {
+                continue;
+            }
+
+            double a = n - 1;
+            double b = n * (n - 1);
+            double y = n / capacity - 1;
+
+            aa += a * a;
+            ab += a * b;
+            bb += b * b;
+            ay += a * y;
+            by += b * y;
+        }
+
+        double sigma = 0;
+        double kappa = 0;
+        double determinant = aa * bb - ab * ab;
+
+        if (determinant > 1e-12) {
+            sigma = (ay * bb - by * ab) / determinant;
+            kappa = (by * aa - ay * ab) / determinant;
+        }
+
+        if (sigma < 0 || determinant <= 1e-12) {
+            sigma = 0;
+            kappa = bb > 0 ? Math.max(0, by / bb) : 0;
+        }
+
+        if (kappa < 0) {
+            kappa = 0;
+            sigma = aa > 0 ? Math.max(0, ay / aa) : 0;
+        }
+
+        var law = new UniversalScalabilityLaw(lambda, sigma, kappa, 0);
+        return new UniversalScalabilityLaw(lambda, sigma, kappa, law.rSquared(concurrencies, throughputs));
+    }
+
+    private double rSquared(int[] concurrencies, double[] throughputs) {
+        double mean = 0;
+        for (double x : throughputs) {
+            mean += x;
+        }
+        mean /= throughputs.length;
+
+        double residual = 0;
+        double total = 0;
+
+        for (int i = 0; i < concurrencies.length; ++i) {
+            double error = throughputs[i] - predict(concurrencies[i]);
+            residual += error * error;
+            total += (throughputs[i] - mean) * (throughputs[i] - mean);
+        }
+
+        return total > 0 ? 1 - residual / total : 1;
+    }
+
+    /**
+     * The throughput predicted for the given concurrency.
+     *
+     * @param concurrency
+     * @return
+     */
+    public double predict(double concurrency) {
+        return lambda * concurrency / (1 + sigma * (concurrency - 1) + kappa * concurrency * (concurrency - 1));
+    }
+
+    /**
+     * The concurrency at which the predicted throughput peaks, or infinity if
+     * there is no coherency cost.
+     *
+     * @return
+     */
+    public double getPeakConcurrency() {
+        return kappa > 0 ? Math.sqrt((1 - sigma) / kappa) : Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * The throughput of a single worker.
+     *
+     * @return
+     */
+    public double getLambda() {
+        return lambda;
+    }
+
+    /**
+     * The contention coefficient.
+     *
+     * @return
+     */
+    public double getSigma() {
+        return sigma;
+    }
+
+    /**
+     * The coherency coefficient.
+     *
+     * @return
+     */
+    public double getKappa() {
+        return kappa;
+    }
+
+    /**
+     * How well the fitted curve explains the measured throughputs, 1 being a
+     * perfect fit.
+     *
+     * @return
+     */
+    public double getRSquared() {
+        return rSquared;
+    }
+
+    @Override
+    public String toString() {
+        double peak = getPeakConcurrency();
+        String limit;
+
+        if (!Double.isInfinite(peak)) {
+            limit = String.format(Locale.ROOT, "peak at N=%.1f with %.1f/s", peak, predict(peak));
+        } else if (sigma > 0) {
+            limit = String.format(Locale.ROOT, "no peak, approaching %.1f/s", lambda / sigma);
+        } else {
+            limit = "linear";
+        }
+
+        return String.format(Locale.ROOT, "lambda=%.2f/s sigma=%.4f kappa=%.6f r2=%.3f, %s",
+                lambda, sigma, kappa, rSquared, limit);
+    }
+}
@@ -0,0 +1,358 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2020 Hochschule Esslingen
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE. 
+ */
+package de.hsesslingen.keim.efs.test.adapter.provider;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import org.slf4j.Logger;
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * An embedded HTTP server which stands in for the API of a mobility
+ * provider. The adapter under test is configured to call
+ * {@link #getBaseUri()} instead of the real provider. Each {@link Route}
+ * answers with a canned response, which can be degraded with {@link Faults}:
+ * latency drawn from a {@link LatencyDistribution}, error responses, dropped
+ * connections and slowly trickling bodies. Hits are counted per route, so
+ * tests can see how often the adapter retried, or stopped calling while a
+ * circuit breaker was open.
+ * <p>
+ * The server only listens on the loopback interface and handles every
+ * request on its own thread, so injected delays don't hold up other
+ * requests.
+ */
+public class FakeProviderServer implements AutoCloseable {
+
+    private static final Logger logger = getLogger(FakeProviderServer.class);
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final Random random;
+
+    private final List<Route> routes = new CopyOnWriteArrayList<>();
+    private final LongAdder unmatched = new LongAdder();
+    private volatile Faults defaultFaults = Faults.none();
+
+    private FakeProviderServer(int port, long seed) throws IOException {
+        random = new Random(seed);
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+
+        var counter = new AtomicInteger();
+        executor = Executors.newCachedThreadPool(r -> {
+            var thread = new Thread(r, "efs-fake-provider-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+        server.start();
+    }
+
+    /**
+     * Starts a server on a free port.
+     *
+     * @return
+     * @throws IOException
+     */
+    public static FakeProviderServer start() throws IOException {
+        return start(0, System.nanoTime());
+    }
+
+    /**
+     * Starts a server on the given port, 0 for a free one. The seed makes
+     * the injected faults repeatable, as far as the order of the requests
+     * is.
+     *
+     * @param port
+     * @param seed
+     * @return
+     * @throws IOException
+     */
+    public static FakeProviderServer start(int port, long seed) throws IOException {
+        return new FakeProviderServer(port, seed);
+    }
+
+    public URI getBaseUri() {
+        return URI.create("http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort());
+    }
+
+    /**
+     * Adds a route for the given method and path. A path ending with "*"
+     * matches all paths with the part before it as prefix. Routes are
+     * matched in the order they were added. The route answers with 200 and
+     * an empty JSON object until configured otherwise.
+     *
+     * @param method
+     * @param path
+     * @return
+     */
+    public Route route(String method, String path) {
+        var route = new Route(method, path, defaultFaults);
+        routes.add(route);
+        return route;
+    }
+
+    public List<Route> getRoutes() {
+        return List.copyOf(routes);
+    }
+
+    /**
+     * Sets the given faults on all routes, and on routes added later.
+     *
+     * @param faults
+     */
+    public void setFaults(Faults faults) {
+        defaultFaults = faults;
+        routes.forEach(r -> r.faults(faults));
+    }
+
+    /**
+     * The number of requests to all routes.
+     *
+     * @return
+     */
+    public long getHits() {
+        return routes.stream().mapToLong(Route::getHits).sum();
+    }
+
+    /**
+     * The number of requests which did not match any route and were
+     * answered with 404.
+     *
+     * @return
+     */
+    public long getUnmatched() {
+        return unmatched.sum();
+    }
+
+    public void resetCounters() {
+        routes.forEach(Route::resetCounters);
+        unmatched.reset();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) {
+        try {
+            var path = exchange.getRequestURI().getPath();
+            var route = routes.stream().filter(r -> r.matches(exchange.getRequestMethod(), path)).findFirst().orElse(null);
+
+            if (route == null) {
+                unmatched.increment();
+                logger.debug("No route for {} {}.", exchange.getRequestMethod(), path);
+                exchange.sendResponseHeaders(404, -1);
+                exchange.close();
+                return;
+            }
+
+            route.hits.increment();
+            var faults = route.faults;
+
+            long delay = faults.getLatency().nextMillis(random);
+            if (delay > 0) {
+                Thread.sleep(delay);
+            }
+
+            if (random.nextDouble() < faults.getResetRate()) {
+                route.resets.increment();
+                // Closing before the headers are sent drops the connection without a response.
+                exchange.close();
+                return;
+            }
+
+            int scripted = route.failNext.getAndUpdate(n -> Math.max(0, n - 1));
+
+            if (scripted > 0 || random.nextDouble() < faults.getErrorRate()) {
+                route.errors.increment();
+                exchange.sendResponseHeaders(scripted > 0 ? route.failNextStatus : faults.getErrorStatus(), -1);
+                exchange.close();
+                return;
+            }
+
+            byte[] body = route.body.apply(exchange).getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", route.contentType);
+
+            try (OutputStream out = exchange.getResponseBody()) {
+                if (faults.isSlowBody()) {
+                    // Length 0 means chunked transfer, so the chunks are sent as they are written.
+                    exchange.sendResponseHeaders(route.status, 0);
+                    long chunkDelay = faults.getSlowBodyChunkDelay().toMillis();
+
+                    for (int offset = 0; offset < body.length; offset += faults.getSlowBodyChunkSize()) {
+                        Thread.sleep(chunkDelay);
+                        out.write(body, offset, Math.min(faults.getSlowBodyChunkSize(), body.length - offset));
+                        out.flush();
+                    }
+                } else {
+                    exchange.sendResponseHeaders(route.status, body.length > 0 ? body.length : -1);
+                    out.write(body);
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            exchange.close();
+        } catch (IOException | RuntimeException ex) {
+            // Usually the adapter gave up on the request, e.g. after its read timeout.
+            logger.debug("Fake provider could not complete {} {}.", exchange.getRequestMethod(), exchange.getRequestURI(), ex);
+            exchange.close();
+        }
+    }
+
+    /**
+     * A canned response of the {@link FakeProviderServer} along with its
+     * faults and hit counters.
+     */
+    public static final class Route {
+
+        private final String method;
+        private final String path;
+
+        private volatile int status = 200;
+        private volatile String contentType = "application/json";
+        private volatile Function<HttpExchange, String> body = exchange -> "{}";
+        private volatile Faults faults;
+
+        private final AtomicInteger failNext = new AtomicInteger();
+        private volatile int failNextStatus = 503;
+
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder resets = new LongAdder();
+
+        private Route(String method, String path, Faults faults) {
+            this.method = method;
+            this.path = path;
+            this.faults = faults;
+        }
+
+        private boolean matches(String requestMethod, String requestPath) {
+            if (!method.equalsIgnoreCase(requestMethod)) {
+                return false;
+            }
+
+            return path.endsWith("*")
+                    ? requestPath.startsWith(path.substring(0, path.length() - 1))
+                    : requestPath.equals(path);
+        }
+
+        public Route respond(int status, String body) {
+            return respond(status, exchange -> body);
+        }
+
+        /**
+         * Answers with the given status and a body created per request, e.g.
+         * depending on the query parameters.
+         *
+         * @param status
+         * @param body
+         * @return
+         */
+        public Route respond(int status, Function<HttpExchange, String> body) {
+            this.status = status;
+            this.body = body;
+            return this;
+        }
+
+        public Route contentType(String contentType) {
+            this.contentType = contentType;
+            return this;
+        }
+
+        public Route faults(Faults faults) {
+            this.faults = faults;
+            return this;
+        }
+
+        /**
+         * Answers the next {@code count} requests with the given status,
+         * regardless of the faults. Useful to check that the adapter retries
+         * a fixed number of times.
+         *
+         * @param count
+         * @param status
+         * @return
+         */
+        public Route failNext(int count, int status) {
+            failNextStatus = status;
+            failNext.set(count);
+            return this;
+        }
+
+        public Faults getFaults() {
+            return faults;
+        }
+
+        public long getHits() {
+            return hits.sum();
+        }
+
+        /**
+         * Requests answered with an error status, scripted or random.
+         *
+         * @return
+         */
+        public long getErrors() {
+            return errors.sum();
+        }
+
+        /**
+         * Requests whose connection was dropped.
+         *
+         * @return
+         */
+        public long getResets() {
+            return resets.sum();
+        }
+
+        public void resetCounters() {
+            hits.reset();
+            errors.reset();
+            resets.reset();
+        }
+
+        @Override
+        public String toString() {
+            return method + " " + path;
+        }
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2020 Hochschule Esslingen
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE. 
+ */
+package de.hsesslingen.keim.efs.test.adapter.provider;
+
+import java.time.Duration;
+import java.util.Locale;
+
+/**
+ * The faults the {@link FakeProviderServer} injects into the responses of a
+ * route. Instances are immutable, the {@code with...} methods return
+ * modified copies.
+ */
+public final class Faults {
+
+    private static final Faults NONE = new Faults(LatencyDistribution.none(), 0, 503, 0, 0, Duration.ZERO);
+
+    private final LatencyDistribution latency;
+    private final double errorRate;
+    private final int errorStatus;
+    private final double resetRate;
+    private final int slowBodyChunkSize;
+    private final Duration slowBodyChunkDelay;
+
+    private Faults(LatencyDistribution latency, double errorRate, int errorStatus, double resetRate, int slowBodyChunkSize, Duration slowBodyChunkDelay) {
+        this.latency = latency;
+        this.errorRate = errorRate;
+        this.errorStatus = errorStatus;
+        this.resetRate = resetRate;
+        this.slowBodyChunkSize = slowBodyChunkSize;
+        this.slowBodyChunkDelay = slowBodyChunkDelay;
+    }
+
+    public static Faults none() {
+        return NONE;
+    }
+
+    /**
+     * Delays every response before the status line is sent.
+     *
+     * @param latency
+     * @return
+     */
+    public Faults withLatency(LatencyDistribution latency) {
+        return new Faults(latency, errorRate, errorStatus, resetRate, slowBodyChunkSize, slowBodyChunkDelay);
+    }
+
+    /**
+     * Answers the given share of requests with the given status and an empty
+     * body instead of the configured response.
+     *
+     * @param errorRate
+     * @param errorStatus
+     * @return
+     */
+    public Faults withErrors(double errorRate, int errorStatus) {
+        return new Faults(latency, errorRate, errorStatus, resetRate, slowBodyChunkSize, slowBodyChunkDelay);
+    }
+
+    /**
+     * Drops the connection of the given share of requests without sending a
+     * response. The JDK server can not send a TCP reset, so the client sees
+     * the connection closed by the peer, which most HTTP clients report the
+     * same way.
+     *
+     * @param resetRate
+     * @return
+     */
+    public Faults withResets(double resetRate) {
+        return new Faults(latency, errorRate, errorStatus, resetRate, slowBodyChunkSize, slowBodyChunkDelay);
+    }
+
+    /**
+     * Sends the body in chunks of the given size, waiting the given delay
+     * before each chunk. Headers are sent immediately, so this hits read
+     * timeouts rather than connect or response timeouts.
+     *
+     * @param chunkSize
+     * @param chunkDelay
+     * @return
+     */
+    public Faults withSlowBody(int chunkSize, Duration chunkDelay) {
+        return new Faults(latency, errorRate, errorStatus, resetRate, Math.max(1, chunkSize), chunkDelay);
+    }
+
+    public LatencyDistribution getLatency() {
+        return latency;
+    }
+
+    public double getErrorRate() {
+        return errorRate;
+    }
+
+    public int getErrorStatus() {
+        return errorStatus;
+    }
+
+    public double getResetRate() {
+        return resetRate;
+    }
+
+    public boolean isSlowBody() {
+        return slowBodyChunkSize > 0;
+    }
+
+    public int getSlowBodyChunkSize() {
+        return slowBodyChunkSize;
+    }
+
+    public Duration getSlowBodyChunkDelay() {
+        return slowBodyChunkDelay;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "errors=%.0f%% (%d) resets=%.0f%% slowBody=%s",
+                100 * errorRate, errorStatus, 100 * resetRate,
+                isSlowBody() ? slowBodyChunkSize + "B/" + slowBodyChunkDelay.toMillis() + "ms" : "no");
+    }
+}
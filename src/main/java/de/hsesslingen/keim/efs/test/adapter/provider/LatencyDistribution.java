@@ -0,0 +1,88 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2020 Hochschule Esslingen
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE. 
+ */
+package de.hsesslingen.keim.efs.test.adapter.provider;
+
+import java.time.Duration;
+import java.util.Random;
+
+/**
+ * A distribution of response delays injected by the
+ * {@link FakeProviderServer}.
+ */
+@FunctionalInterface
+public interface LatencyDistribution {
+
+    /**
+     * Draws the next delay in milliseconds.
+     *
+     * @param random
+     * @return
+     */
+    public long nextMillis(Random random);
+
+    public static LatencyDistribution none() {
+        return random -> 0;
+    }
+
+    public static LatencyDistribution fixed(Duration delay) {
+        long millis = delay.toMillis();
+        return random -> millis;
+    }
+
+    public static LatencyDistribution uniform(Duration min, Duration max) {
+        long minMillis = min.toMillis();
+        long range = Math.max(0, max.toMillis() - minMillis);
+        return random -> minMillis + (range > 0 ? (long) (random.nextDouble() * range) : 0);
+    }
+
+    /**
+     * A log-normal distribution with the given median and 99th percentile,
+     * which is a good fit for the response times of most HTTP services:
+     * mostly fast, with a long tail.
+     *
+     * @param median
+     * @param p99
+     * @return
+     */
+    public static LatencyDistribution logNormal(Duration median, Duration p99) {
+        double mu = Math.log(Math.max(1, median.toMillis()));
+        // 2.326 is the 99% quantile of the standard normal distribution.
+        double sigma = Math.max(0, (Math.log(Math.max(1, p99.toMillis())) - mu) / 2.326);
+        return random -> Math.round(Math.exp(mu + sigma * random.nextGaussian()));
+    }
+
+    /**
+     * Mostly draws from {@code base}, but with the given probability from
+     * {@code spike}. Models a provider which is usually fast but stalls every
+     * now and then, e.g. during its garbage collections.
+     *
+     * @param base
+     * @param spike
+     * @param probability
+     * @return
+     */
+    public static LatencyDistribution spikes(LatencyDistribution base, LatencyDistribution spike, double probability) {
+        return random -> random.nextDouble() < probability ? spike.nextMillis(random) : base.nextMillis(random);
+    }
+}
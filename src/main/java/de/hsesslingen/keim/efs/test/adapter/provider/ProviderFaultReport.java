@@ -0,0 +1,117 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2020 Hochschule Esslingen
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE. 
+ */
+package de.hsesslingen.keim.efs.test.adapter.provider;
+
+import de.hsesslingen.keim.efs.test.adapter.perf.LatencySummary;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * How the adapter behaved under each provider condition of a fault run: the
+ * latency it answered with, how many of its answers failed and how many
+ * requests it sent to the provider for each of its own requests. More than
+ * one provider hit per request indicates retries, noticeably fewer than one
+ * under errors indicates an open circuit breaker or a cache.
+ */
+public class ProviderFaultReport {
+
+    private final List<Row> rows = new ArrayList<>();
+
+    public void add(String condition, Faults faults, int requests, int failures, long providerHits, LatencySummary latency) {
+        rows.add(new Row(condition, faults, requests, failures, providerHits, latency));
+    }
+
+    public List<Row> getRows() {
+        return List.copyOf(rows);
+    }
+
+    @Override
+    public String toString() {
+        var sb = new StringBuilder();
+
+        sb.append(String.format("%n%-16s %8s %8s %10s %10s %10s %10s  %s%n",
+                "condition", "requests", "failed", "hits/req", "p50", "p99", "max", "faults"));
+
+        for (Row row : rows) {
+            sb.append(String.format(Locale.ROOT, "%-16s %8d %7.1f%% %10.2f %8.1fms %8.1fms %8.1fms  %s%n",
+                    row.condition, row.requests, 100.0 * row.getFailureRatio(), row.getProviderHitsPerRequest(),
+                    row.latency.getP50() / 1_000_000.0, row.latency.getP99() / 1_000_000.0, row.latency.getMax() / 1_000_000.0,
+                    row.faults));
+        }
+
+        return sb.toString();
+    }
+
+    public static final class Row {
+
+        private final String condition;
+        private final Faults faults;
+        private final int requests;
+        private final int failures;
+        private final long providerHits;
+        private final LatencySummary latency;
+
+        private Row(String condition, Faults faults, int requests, int failures, long providerHits, LatencySummary latency) {
+            this.condition = condition;
+            this.faults = faults;
+            this.requests = requests;
+            this.failures = failures;
+            this.providerHits = providerHits;
+            this.latency = latency;
+        }
+
+        public String getCondition() {
+            return condition;
+        }
+
+        public Faults getFaults() {
+            return faults;
+        }
+
+        public int getRequests() {
+            return requests;
+        }
+
+        public int getFailures() {
+            return failures;
+        }
+
+        public double getFailureRatio() {
+            return requests > 0 ? (double) failures / requests : 0;
+        }
+
+        public long getProviderHits() {
+            return providerHits;
+        }
+
+        public double getProviderHitsPerRequest() {
+            return requests > 0 ? (double) providerHits / requests : 0;
+        }
+
+        public LatencySummary getLatency() {
+            return latency;
+        }
+    }
+}
@@ -0,0 +1,232 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2020 Hochschule Esslingen
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE. 
+ */
+package de.hsesslingen.keim.efs.test.adapter.transport;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import org.slf4j.Logger;
+import static org.slf4j.LoggerFactory.getLogger;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.web.servlet.MvcResult;
+
+/**
+ * Writes request/response pairs into an indexed binary file, which can be
+ * served back by {@link ReplayTransport}.
+ * <p>
+ * File layout, all numbers big endian, all strings as int length followed by
+ * UTF-8 bytes:
+ * <pre>
+ * header:  int MAGIC, int VERSION
+ * record:  string method, string path, string query, bytes requestBody,
+ *          int status, string contentType, bytes responseBody
+ * index:   int count, count * (string key, int offset)
+ * footer:  int indexOffset, int MAGIC
+ * </pre>
+ * Bytes are written as int length followed by the content. The index is only
+ * written by {@link #close()}. Files are limited to 2 GiB.
+ */
+public class ExchangeRecorder implements AutoCloseable {
+
+    private static final Logger logger = getLogger(ExchangeRecorder.class);
+
+    static final int MAGIC = 0x45465358; // "EFSX"
+    static final int VERSION = 3;
+
+    /**
+     * Query parameters which hold points in time. Tests derive them from the
+     * current time, so they are left out of the key.
+     */
+    private static final Set<String> TIME_PARAMETERS = Set.of("startTime", "endTime");
+
+    private static final ConcurrentMap<Path, ExchangeRecorder> shared = new ConcurrentHashMap<>();
+
+    private final Path file;
+    private final DataOutputStream out;
+    private final List<String> keys = new ArrayList<>();
+    private final List<Integer> offsets = new ArrayList<>();
+    private boolean closed;
+
+    public ExchangeRecorder(Path file) throws IOException {
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+
+        this.file = file;
+        this.out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)));
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+    }
+
+    /**
+     * Returns a recorder for the given file, which is shared within the JVM
+     * and closed when the JVM exits.
+     *
+     * @param file
+     * @return
+     */
+    public static ExchangeRecorder shared(Path file) {
+        return shared.computeIfAbsent(file.toAbsolutePath(), f -> {
+            try {
+                var recorder = new ExchangeRecorder(f);
+                Runtime.getRuntime().addShutdownHook(new Thread(recorder::closeQuietly, "efs-exchange-recorder"));
+                return recorder;
+            } catch (IOException ex) {
+                throw new IllegalStateException("Could not create recording file " + f + ".", ex);
+            }
+        });
+    }
+
+    /**
+     * The key under which exchanges are looked up during replay. For PUT
+     * requests, it includes a hash of the body, so modifications of the same
+     * booking towards different states are told apart. POST requests create
+     * bookings with bodies that depend on the current time, so their bodies
+     * are not part of the key and all creations are served in turns. For the
+     * same reason, the time parameters of options requests are left out of
+     * the query, so a recording can be replayed at any later time.
+     *
+     * @param method
+     * @param path
+     * @param query
+     * @param body
+     * @return
+     */
+    static String keyOf(String method, String path, String query, byte[] body) {
+        var normalized = withoutTimeParameters(query);
+        var key = method + " " + path + (!normalized.isEmpty() ? "?" + normalized : "");
+        return "PUT".equals(method) ? key + " #" + hashOf(body) : key;
+    }
+
+    private static String withoutTimeParameters(String query) {
+        if (query == null || query.isEmpty()) {
+            return "";
+        }
+
+        var kept = new StringJoiner("&");
+
+        for (String parameter : query.split("&")) {
+            int equals = parameter.indexOf('=');
+            var name = equals >= 0 ? parameter.substring(0, equals) : parameter;
+
+            if (!TIME_PARAMETERS.contains(name)) {
+                kept.add(parameter);
+            }
+        }
+
+        return kept.toString();
+    }
+
+    private static String hashOf(byte[] body) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(body != null ? body : new byte[0]);
+            return Long.toHexString(ByteBuffer.wrap(digest).getLong());
+        } catch (NoSuchAlgorithmException ex) {
+            // Every JVM has to support SHA-256.
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    public synchronized void record(MvcResult result) throws IOException {
+        if (closed) {
+            throw new IllegalStateException("Recorder for " + file + " is already closed.");
+        }
+
+        MockHttpServletRequest request = result.getRequest();
+        var response = result.getResponse();
+
+        keys.add(keyOf(request.getMethod(), request.getRequestURI(), request.getQueryString(), request.getContentAsByteArray()));
+        offsets.add(out.size());
+
+        writeString(request.getMethod());
+        writeString(request.getRequestURI());
+        writeString(request.getQueryString());
+        writeBytes(request.getContentAsByteArray());
+        out.writeInt(response.getStatus());
+        writeString(response.getContentType());
+        writeBytes(response.getContentAsByteArray());
+    }
+
+    private void writeString(String value) throws IOException {
+        writeBytes(value != null ? value.getBytes(StandardCharsets.UTF_8) : null);
+    }
+
+    private void writeBytes(byte[] value) throws IOException {
+        if (value == null) {
+            out.writeInt(0);
+        } else {
+            out.writeInt(value.length);
+            out.write(value);
+        }
+    }
+
+    /**
+     * Writes the index and closes the file.
+     *
+     * @throws IOException
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+
+        closed = true;
+        int indexOffset = out.size();
+
+        out.writeInt(keys.size());
+
+        for (int i = 0; i < keys.size(); ++i) {
+            writeString(keys.get(i));
+            out.writeInt(offsets.get(i));
+        }
+
+        out.writeInt(indexOffset);
+        out.writeInt(MAGIC);
+        out.close();
+
+        logger.info("Recorded {} exchanges to {}.", keys.size(), file.toAbsolutePath());
+    }
+
+    private void closeQuietly() {
+        try {
+            close();
+        } catch (IOException ex) {
+            logger.warn("Could not close recording file {}.", file, ex);
+        }
+    }
+
+}
@@ -0,0 +1,195 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2020 Hochschule Esslingen
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE. 
+ */
+package de.hsesslingen.keim.efs.test.adapter.transport;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockServletContext;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+/**
+ * Sends requests over the network to an adapter which runs as a separate
+ * server, using a {@link HttpClient}. The client prefers HTTP/2 and keeps its
+ * connections pooled, so there should only be one instance per adapter. Use
+ * {@link #forBaseUri(URI)} to obtain it.
+ */
+public class HttpClientTransport implements RequestTransport {
+
+    private static final ConcurrentMap<URI, HttpClientTransport> instances = new ConcurrentHashMap<>();
+
+    /**
+     * Headers which are managed by the {@link HttpClient} itself and must not
+     * be set explicitly.
+     */
+    private static final Set<String> RESTRICTED_HEADERS;
+
+    static {
+        var headers = new TreeSet<String>(String.CASE_INSENSITIVE_ORDER);
+        headers.addAll(Set.of("connection", "content-length", "expect", "host", "upgrade"));
+        RESTRICTED_HEADERS = Collections.unmodifiableSet(headers);
+    }
+
+    private final String baseUri;
+    private final HttpClient client;
+    private final Duration requestTimeout;
+    private final MockServletContext servletContext = new MockServletContext();
+
+    /**
+     * @param baseUri The URI of the adapter, e.g. {@code http://localhost:8080}.
+     * Request paths are appended to it.
+     * @param client
+     * @param requestTimeout
+     */
+    public HttpClientTransport(URI baseUri, HttpClient client, Duration requestTimeout) {
+        var uri = baseUri.toString();
+        this.baseUri = uri.endsWith("/") ? uri.substring(0, uri.length() - 1) : uri;
+        this.client = client;
+        this.requestTimeout = requestTimeout;
+    }
+
+    /**
+     * Returns the shared transport for the adapter at the given URI.
+     *
+     * @param baseUri
+     * @return
+     */
+    public static HttpClientTransport forBaseUri(URI baseUri) {
+        return instances.computeIfAbsent(baseUri, uri -> new HttpClientTransport(uri, newDefaultClient(), Duration.ofSeconds(60)));
+    }
+
+    private static HttpClient newDefaultClient() {
+        return HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(Duration.ofSeconds(10))
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .build();
+    }
+
+    public HttpClient getClient() {
+        return client;
+    }
+
+    @Override
+    public MvcResult perform(MockHttpServletRequestBuilder builder) throws Exception {
+        // Post processors are applied like MockMvc does, they may replace the request.
+        MockHttpServletRequest request = builder.postProcessRequest(builder.buildRequest(servletContext));
+        HttpResponse<byte[]> response = client.send(toHttpRequest(request), BodyHandlers.ofByteArray());
+        return new HttpMvcResult(request, toMockResponse(response));
+    }
+
+    /**
+     * Sends the request with {@link HttpClient#sendAsync}, so the calling
+     * thread is not blocked and many requests can be in flight at once, over
+     * the same HTTP/2 connection.
+     *
+     * @param builder
+     * @return
+     */
+    @Override
+    public CompletableFuture<MvcResult> performAsync(MockHttpServletRequestBuilder builder) {
+        // Post processors are applied like MockMvc does, they may replace the request.
+        MockHttpServletRequest request = builder.postProcessRequest(builder.buildRequest(servletContext));
+
+        return client.sendAsync(toHttpRequest(request), BodyHandlers.ofByteArray()).thenApply(response -> {
+            try {
+                return new HttpMvcResult(request, toMockResponse(response));
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        });
+    }
+
+    /**
+     * Translates the given mock request into a request against the base URI.
+     *
+     * @param request
+     * @return
+     */
+    public HttpRequest toHttpRequest(MockHttpServletRequest request) {
+        var query = request.getQueryString();
+        var uri = URI.create(baseUri + request.getRequestURI() + (query != null ? "?" + query : ""));
+
+        byte[] content = request.getContentAsByteArray();
+        var body = content != null && content.length > 0
+                ? BodyPublishers.ofByteArray(content)
+                : BodyPublishers.noBody();
+
+        var httpRequest = HttpRequest.newBuilder(uri)
+                .timeout(requestTimeout)
+                .method(request.getMethod(), body);
+
+        for (String name : Collections.list(request.getHeaderNames())) {
+            if (!RESTRICTED_HEADERS.contains(name)) {
+                for (String value : Collections.list(request.getHeaders(name))) {
+                    httpRequest.header(name, value);
+                }
+            }
+        }
+
+        return httpRequest.build();
+    }
+
+    /**
+     * Copies status, headers and body of the given response into a mock
+     * response, so result matchers can be applied to it.
+     *
+     * @param response
+     * @return
+     * @throws java.io.IOException
+     */
+    public static MockHttpServletResponse toMockResponse(HttpResponse<byte[]> response) throws IOException {
+        var mockResponse = new MockHttpServletResponse();
+        mockResponse.setStatus(response.statusCode());
+
+        response.headers().map().forEach((name, values) -> {
+            // Pseudo headers of HTTP/2 start with a colon and are not real headers.
+            if (!name.startsWith(":")) {
+                values.forEach(value -> mockResponse.addHeader(name, value));
+            }
+        });
+
+        if (response.body() != null) {
+            mockResponse.getOutputStream().write(response.body());
+        }
+
+        return mockResponse;
+    }
+
+}
@@ -0,0 +1,94 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2020 Hochschule Esslingen
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE. 
+ */
+package de.hsesslingen.keim.efs.test.adapter.transport;
+
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.servlet.FlashMap;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.ModelAndView;
+
+/**
+ * A {@link MvcResult} for requests which were not dispatched through MockMvc.
+ * Only request and response are available, everything that refers to the
+ * internals of the dispatcher servlet is empty.
+ */
+public class HttpMvcResult implements MvcResult {
+
+    private final MockHttpServletRequest request;
+    private final MockHttpServletResponse response;
+    private final FlashMap flashMap = new FlashMap();
+
+    public HttpMvcResult(MockHttpServletRequest request, MockHttpServletResponse response) {
+        this.request = request;
+        this.response = response;
+    }
+
+    @Override
+    public MockHttpServletRequest getRequest() {
+        return request;
+    }
+
+    @Override
+    public MockHttpServletResponse getResponse() {
+        return response;
+    }
+
+    @Override
+    public Object getHandler() {
+        return null;
+    }
+
+    @Override
+    public HandlerInterceptor[] getInterceptors() {
+        return null;
+    }
+
+    @Override
+    public ModelAndView getModelAndView() {
+        return null;
+    }
+
+    @Override
+    public Exception getResolvedException() {
+        return null;
+    }
+
+    @Override
+    public FlashMap getFlashMap() {
+        return flashMap;
+    }
+
+    @Override
+    public Object getAsyncResult() {
+        return null;
+    }
+
+    @Override
+    public Object getAsyncResult(long timeToWait) {
+        return null;
+    }
+
+}
@@ -0,0 +1,101 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2020 Hochschule Esslingen
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE. 
+ */
+package de.hsesslingen.keim.efs.test.adapter.transport;
+
+import java.util.concurrent.CompletableFuture;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+
+/**
+ * Dispatches requests in-process through {@link MockMvc}. If the controller
+ * of the adapter processes a request asynchronously, e.g. by returning a
+ * {@link CompletableFuture} or a {@code DeferredResult}, the result is
+ * dispatched once it is available, like the servlet container would do.
+ */
+public class MockMvcTransport implements RequestTransport {
+
+    private final MockMvc mockMvc;
+
+    public MockMvcTransport(MockMvc mockMvc) {
+        this.mockMvc = mockMvc;
+    }
+
+    public MockMvc getMockMvc() {
+        return mockMvc;
+    }
+
+    @Override
+    public MvcResult perform(MockHttpServletRequestBuilder builder) throws Exception {
+        MvcResult result = mockMvc.perform(builder).andReturn();
+
+        if (result.getRequest().isAsyncStarted()) {
+            // Waits for the async result.
+            return mockMvc.perform(asyncDispatch(result)).andReturn();
+        }
+
+        return result;
+    }
+
+    /**
+     * Dispatches the request on the calling thread. If the controller
+     * completes synchronously, so does the returned future. Otherwise the
+     * calling thread is released and the future is completed after the async
+     * result was dispatched.
+     *
+     * @param builder
+     * @return
+     */
+    @Override
+    public CompletableFuture<MvcResult> performAsync(MockHttpServletRequestBuilder builder) {
+        MvcResult started;
+
+        try {
+            started = mockMvc.perform(builder).andReturn();
+        } catch (Exception ex) {
+            return CompletableFuture.failedFuture(ex);
+        }
+
+        if (!started.getRequest().isAsyncStarted()) {
+            return CompletableFuture.completedFuture(started);
+        }
+
+        var future = new CompletableFuture<MvcResult>();
+        var asyncContext = (MockAsyncContext) started.getRequest().getAsyncContext();
+
+        // Runs on the thread which completed the async result, so hand the dispatch over to the pool.
+        asyncContext.addDispatchHandler(() -> CompletableFuture.runAsync(() -> {
+            try {
+                future.complete(mockMvc.perform(asyncDispatch(started)).andReturn());
+            } catch (Exception ex) {
+                future.completeExceptionally(ex);
+            }
+        }));
+
+        return future;
+    }
+
+}
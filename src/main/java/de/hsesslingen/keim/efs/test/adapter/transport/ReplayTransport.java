@@ -0,0 +1,174 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2020 Hochschule Esslingen
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE. 
+ */
+package de.hsesslingen.keim.efs.test.adapter.transport;
+
+import de.hsesslingen.keim.efs.test.adapter.perf.Endpoint;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockServletContext;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+/**
+ * Serves responses recorded by {@link ExchangeRecorder} from a memory mapped
+ * file, without an adapter being involved.
+ * <p>
+ * Requests are matched by method, path, query and, for modifications, the
+ * body, see {@link ExchangeRecorder#keyOf}. If the same request was recorded
+ * several times, the recorded responses are served in turns. A request which
+ * was not recorded fails, instead of being answered with the response of a
+ * different request.
+ */
+public class ReplayTransport implements RequestTransport {
+
+    private static final ConcurrentMap<Path, ReplayTransport> shared = new ConcurrentHashMap<>();
+
+    private final MappedByteBuffer buffer;
+    private final Map<String, Slot> exact = new HashMap<>();
+    private final MockServletContext servletContext = new MockServletContext();
+
+    public ReplayTransport(Path file) throws IOException {
+        try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        var reader = buffer.duplicate();
+
+        if (reader.getInt(0) != ExchangeRecorder.MAGIC || reader.getInt(reader.limit() - 4) != ExchangeRecorder.MAGIC) {
+            throw new IOException(file + " is not a complete recording.");
+        }
+
+        if (reader.getInt(4) != ExchangeRecorder.VERSION) {
+            throw new IOException(file + " was recorded with version " + reader.getInt(4) + " and must be recorded again.");
+        }
+
+        reader.position(reader.getInt(reader.limit() - 8));
+        int count = reader.getInt();
+
+        for (int i = 0; i < count; ++i) {
+            String key = readString(reader);
+            int offset = reader.getInt();
+
+            exact.computeIfAbsent(key, k -> new Slot()).offsets.add(offset);
+        }
+    }
+
+    /**
+     * Returns the replay transport for the given file, which is shared within
+     * the JVM.
+     *
+     * @param file
+     * @return
+     */
+    public static ReplayTransport forFile(Path file) {
+        return shared.computeIfAbsent(file.toAbsolutePath(), f -> {
+            try {
+                return new ReplayTransport(f);
+            } catch (IOException ex) {
+                throw new IllegalStateException("Could not open recording file " + f + ".", ex);
+            }
+        });
+    }
+
+    public int size() {
+        return exact.values().stream().mapToInt(slot -> slot.offsets.size()).sum();
+    }
+
+    @Override
+    public MvcResult perform(MockHttpServletRequestBuilder builder) throws Exception {
+        // Post processors are applied like MockMvc does, they may replace the request.
+        MockHttpServletRequest request = builder.postProcessRequest(builder.buildRequest(servletContext));
+
+        var slot = exact.get(ExchangeRecorder.keyOf(request.getMethod(), request.getRequestURI(), request.getQueryString(), request.getContentAsByteArray()));
+
+        if (slot == null) {
+            throw new IllegalStateException("No exchange recorded for " + Endpoint.of(request) + " (" + request.getRequestURI()
+                    + ") with this body. The replay only answers requests which were recorded.");
+        }
+
+        return new HttpMvcResult(request, readResponse(slot.next()));
+    }
+
+    private MockHttpServletResponse readResponse(int offset) throws IOException {
+        var reader = buffer.duplicate();
+        reader.position(offset);
+
+        // Skip method, path, query and request body.
+        for (int i = 0; i < 4; ++i) {
+            int length = reader.getInt();
+            reader.position(reader.position() + length);
+        }
+
+        var response = new MockHttpServletResponse();
+        response.setStatus(reader.getInt());
+
+        var contentType = readString(reader);
+        if (contentType != null) {
+            response.setContentType(contentType);
+        }
+
+        byte[] body = new byte[reader.getInt()];
+        reader.get(body);
+        response.getOutputStream().write(body);
+
+        return response;
+    }
+
+    private static String readString(ByteBuffer reader) {
+        int length = reader.getInt();
+
+        if (length == 0) {
+            return null;
+        }
+
+        byte[] bytes = new byte[length];
+        reader.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static class Slot {
+
+        private final List<Integer> offsets = new ArrayList<>();
+        private final AtomicInteger next = new AtomicInteger();
+
+        private int next() {
+            return offsets.get(Math.floorMod(next.getAndIncrement(), offsets.size()));
+        }
+    }
+
+}
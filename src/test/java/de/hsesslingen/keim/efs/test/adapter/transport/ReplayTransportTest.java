@@ -0,0 +1,93 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2020 Hochschule Esslingen
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE. 
+ */
+package de.hsesslingen.keim.efs.test.adapter.transport;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockServletContext;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+
+public class ReplayTransportTest {
+
+    private static final String OPTIONS = "[{\"meansOfTransport\":\"CAR\"}]";
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void replaysOptionsRecordedAtAnEarlierTime() throws Exception {
+        var file = directory.resolve("options.efsx");
+        var recordedAt = Instant.parse("2020-06-01T10:00:00Z");
+
+        try (var recorder = new ExchangeRecorder(file)) {
+            recorder.record(exchange(optionsRequest(recordedAt), OPTIONS));
+        }
+
+        // The clock of the replay is a day later, so the time parameters differ.
+        var replay = new ReplayTransport(file);
+        var result = replay.perform(optionsRequest(recordedAt.plus(Duration.ofDays(1))));
+
+        assertEquals(200, result.getResponse().getStatus());
+        assertEquals(OPTIONS, result.getResponse().getContentAsString());
+    }
+
+    @Test
+    public void failsOnRequestsWhichWereNotRecorded() throws Exception {
+        var file = directory.resolve("modifications.efsx");
+
+        try (var recorder = new ExchangeRecorder(file)) {
+            recorder.record(exchange(put("/api/bookings/1").content("{\"state\":\"STARTED\"}"), "{}"));
+        }
+
+        var replay = new ReplayTransport(file);
+
+        assertThrows(IllegalStateException.class, () -> replay.perform(put("/api/bookings/1").content("{\"state\":\"CANCELLED\"}")));
+        assertThrows(IllegalStateException.class, () -> replay.perform(get("/api/options?from=48.7,9.3&radius=1000")));
+    }
+
+    private static MockHttpServletRequestBuilder optionsRequest(Instant startTime) {
+        // Built like the harness does, with the parameters in the URI.
+        return get("/api/options?from=48.7,9.3&startTime=" + startTime.toEpochMilli()
+                + "&endTime=" + startTime.plus(Duration.ofHours(1)).toEpochMilli() + "&radius=500");
+    }
+
+    private static HttpMvcResult exchange(MockHttpServletRequestBuilder builder, String body) throws Exception {
+        var response = new MockHttpServletResponse();
+        response.setStatus(200);
+        response.setContentType("application/json");
+        response.getOutputStream().write(body.getBytes(StandardCharsets.UTF_8));
+
+        return new HttpMvcResult(builder.buildRequest(new MockServletContext()), response);
+    }
+
+}